@@ -0,0 +1,14 @@
+package memory;
+/**
+ * How a SharedVector (or every vector of a SharedMatrix) is protected.
+ * LOCKED takes the vector's read/write lock on every access.
+ * FROZEN vectors are read-only, so reads take no lock and any write fails.
+ * OWNED vectors are used by a single thread, e.g. the row a task writes its
+ * result into, so no lock is taken either; with access checks enabled (see
+ * {@link SharedVector#setAccessChecks}) a second thread touching it fails.
+ */
+public enum AccessMode {
+    LOCKED,
+    FROZEN,
+    OWNED
+}
@@ -18,6 +18,17 @@ public class SharedMatrix {
         vectors = tempVectors;
     }
 
+    public SharedMatrix(int rows, int columns) {
+        // zero-filled row-major matrix, for results written in place
+        if (rows < 0 || columns < 0)
+            throw new IllegalArgumentException("matrix dimensions cannot be negative");
+        SharedVector[] tempVectors = new SharedVector[rows];
+        for (int i = 0; i < rows; i++) {
+            tempVectors[i] = new SharedVector(new double[columns], VectorOrientation.ROW_MAJOR);
+        }
+        vectors = tempVectors;
+    }
+
     public void loadRowMajor(double[][] matrix) {
         // replace internal data with new raw-major matrix
         SharedVector[] tempVectors = new SharedVector[matrix.length];
@@ -104,6 +115,24 @@ public class SharedMatrix {
         return this.vectors[0].getOrientation();
     }
 
+    /**
+     * The access mode of the matrix's vectors (LOCKED for an empty matrix).
+     */
+    public AccessMode getAccessMode() {
+        SharedVector[] vecs = this.vectors;
+        return vecs.length == 0 ? AccessMode.LOCKED : vecs[0].getAccessMode();
+    }
+
+    /**
+     * Puts every vector into the given access mode, see {@link AccessMode}.
+     * Must only be called while no other thread uses the matrix.
+     */
+    public void setAccessMode(AccessMode mode) {
+        for (SharedVector vector : this.vectors) {
+            vector.setAccessMode(mode);
+        }
+    }
+
     private void acquireAllVectorReadLocks(SharedVector[] vecs) {
         // acquire read lock for each vector
         for (int i = 0; i < vecs.length; i++) {
@@ -1,12 +1,18 @@
 package memory;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 
 public class SharedVector {
 
+    // checks that OWNED vectors are used by one thread only; off unless -Dlae.checkAccess=true
+    private static volatile boolean accessChecks = Boolean.getBoolean("lae.checkAccess");
+
     private double[] vector;
     private VectorOrientation orientation;
     private ReadWriteLock lock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+    private volatile AccessMode mode = AccessMode.LOCKED;
+    private final AtomicReference<Thread> owner = new AtomicReference<>(); // first user of an OWNED vector
 
     public SharedVector(double[] vector, VectorOrientation orientation) {
         this.vector = vector;
@@ -24,6 +30,16 @@ public class SharedVector {
         }
     }
 
+    public void set(int index, double value) {
+        // Write lock: a single element changes, no other thread may read or write it meanwhile
+        writeLock();
+        try {
+            vector[index] = value;
+        } finally {
+            writeUnlock();
+        }
+    }
+
     public int length() {
         // Read-only access → read lock
         // Length depends on the vector array which may be replaced later.
@@ -46,20 +62,69 @@ public class SharedVector {
         }
     }
 
+    /**
+     * Enables or disables the debug checks that an OWNED vector is only used
+     * by a single thread.
+     */
+    public static void setAccessChecks(boolean enabled) {
+        accessChecks = enabled;
+    }
+
+    public static boolean isAccessChecked() {
+        return accessChecks;
+    }
+
+    public AccessMode getAccessMode() {
+        return mode;
+    }
+
+    /**
+     * Changes how the vector is protected. Must only be called while no
+     * other thread uses the vector, since a lock taken in one mode has to
+     * be released in the same mode.
+     */
+    public void setAccessMode(AccessMode mode) {
+        if (mode == null)
+            throw new IllegalArgumentException("access mode cannot be null");
+        owner.set(null);
+        this.mode = mode;
+    }
+
     public void writeLock() {
-        this.lock.writeLock().lock();
+        switch (mode) {
+            case LOCKED -> this.lock.writeLock().lock();
+            case FROZEN -> throw new IllegalStateException("cannot write a frozen vector");
+            case OWNED -> checkOwner();
+        }
     }
 
     public void writeUnlock() {
-        this.lock.writeLock().unlock();
+        if (mode == AccessMode.LOCKED)
+            this.lock.writeLock().unlock();
     }
 
     public void readLock() {
-        this.lock.readLock().lock();
+        switch (mode) {
+            case LOCKED -> this.lock.readLock().lock();
+            case FROZEN -> {
+                // nobody writes a frozen vector
+            }
+            case OWNED -> checkOwner();
+        }
     }
 
     public void readUnlock() {
-        this.lock.readLock().unlock();
+        if (mode == AccessMode.LOCKED)
+            this.lock.readLock().unlock();
+    }
+
+    private void checkOwner() {
+        if (!accessChecks)
+            return;
+        Thread current = Thread.currentThread();
+        if (!owner.compareAndSet(null, current) && owner.get() != current)
+            throw new IllegalStateException("owned vector used by " + current.getName()
+                    + " while owned by " + owner.get().getName());
     }
 
 
@@ -107,6 +172,30 @@ public class SharedVector {
         }
     }
 
+    public void subtract(SharedVector other) {
+        // subtract other from this vector, in one pass instead of negate + add
+        if (other == null)
+            throw new IllegalArgumentException("cant subtract, other vector is null");
+
+        this.writeLock();
+        other.readLock();
+        try {
+            if (vector.length != other.length()) {
+                throw new IllegalArgumentException("the vectors are not in the same size");
+            }
+            if (other.orientation != this.orientation) {
+                throw new IllegalArgumentException("Vectors must have the same orientation to subtract.");
+            }
+            for (int i = 0; i < vector.length; i++) {
+                this.vector[i] = this.vector[i] - other.vector[i];
+            }
+
+        } finally {
+            other.readUnlock();
+            this.writeUnlock();
+        }
+    }
+
     public void negate() {
         // negate vector
         /*
@@ -0,0 +1,201 @@
+package parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Common subexpression elimination: hash-conses structurally identical
+ * subtrees of a parsed computation tree into one shared node, turning the
+ * tree into a DAG so that each distinct subexpression is computed once.
+ * Matrix literals are identical when they have the same shape and the same
+ * values (compared bit for bit); operation nodes are identical when they
+ * apply the same operator to the same (already shared) operands in the same
+ * order. Since a resolved node keeps its result in place, every parent of a
+ * shared node sees the result as soon as it is computed.
+ */
+public class CommonSubexpressionEliminator {
+
+    private int nodesVisited = 0;
+    private int nodesMerged = 0;
+    private int leavesMerged = 0;
+
+    /**
+     * Rewrites the tree under {@code root} in place and returns its root.
+     * Runs iteratively, so deep trees cannot overflow the call stack.
+     */
+    public ComputationNode eliminate(ComputationNode root) {
+        if (root == null)
+            throw new IllegalArgumentException("computation root cannot be null");
+        nodesVisited = 0;
+        nodesMerged = 0;
+        leavesMerged = 0;
+
+        Map<Object, ComputationNode> interned = new HashMap<>();
+        // original node -> the node that stands for it from now on
+        Map<ComputationNode, ComputationNode> canonical = new IdentityHashMap<>();
+        Set<ComputationNode> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        // post-order: a node is interned once all of its children were
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.peek();
+            if (canonical.containsKey(node)) {
+                stack.pop();
+            } else if (node.getNodeType() == ComputationNodeType.MATRIX || !expanded.add(node)) {
+                stack.pop();
+                canonical.put(node, intern(node, canonical, interned));
+            } else {
+                for (ComputationNode child : node.getChildren()) {
+                    if (!canonical.containsKey(child))
+                        stack.push(child);
+                }
+            }
+        }
+        return canonical.get(root);
+    }
+
+    private ComputationNode intern(ComputationNode node, Map<ComputationNode, ComputationNode> canonical,
+            Map<Object, ComputationNode> interned) {
+        nodesVisited++;
+        Object key;
+        if (node.getNodeType() == ComputationNodeType.MATRIX) {
+            key = new LeafKey(node.getMatrix());
+        } else {
+            List<ComputationNode> children = new ArrayList<>(node.getChildren().size());
+            for (ComputationNode child : node.getChildren()) {
+                children.add(canonical.get(child));
+            }
+            node.setChildren(children);
+            key = new OperationKey(node.getNodeType(), node.getExponent(), children);
+        }
+        ComputationNode existing = interned.putIfAbsent(key, node);
+        if (existing == null)
+            return node;
+        nodesMerged++;
+        if (node.getNodeType() == ComputationNodeType.MATRIX)
+            leavesMerged++;
+        return existing;
+    }
+
+    /**
+     * Nodes (matrices and operations) in the last tree, counting every copy.
+     */
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Copies that were replaced by a shared node in the last tree.
+     */
+    public int getNodesMerged() {
+        return nodesMerged;
+    }
+
+    public int getLeavesMerged() {
+        return leavesMerged;
+    }
+
+    @Override
+    public String toString() {
+        return "CSE: nodes=" + nodesVisited
+                + " | unique=" + (nodesVisited - nodesMerged)
+                + " | merged=" + nodesMerged
+                + " | merged matrices=" + leavesMerged;
+    }
+
+    /**
+     * 64-bit digest of a matrix's shape and contents. Equal matrices (bit for
+     * bit) have equal digests; different ones collide with negligible
+     * probability, but callers that need certainty still compare contents.
+     */
+    public static long contentDigest(double[][] matrix) {
+        long h = mix(matrix.length);
+        for (double[] row : matrix) {
+            h = Long.rotateLeft(h ^ mix(row.length), 31) * 0x9E3779B97F4A7C15L;
+            for (double value : row) {
+                h = Long.rotateLeft(h ^ mix(Double.doubleToLongBits(value)), 31) * 0x9E3779B97F4A7C15L;
+            }
+        }
+        return mix(h);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A matrix literal, hashed by content digest and compared by value.
+     */
+    private static final class LeafKey {
+        private final double[][] matrix;
+        private final long digest;
+
+        LeafKey(double[][] matrix) {
+            this.matrix = matrix;
+            this.digest = contentDigest(matrix);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LeafKey))
+                return false;
+            LeafKey other = (LeafKey) o;
+            return digest == other.digest && Arrays.deepEquals(matrix, other.matrix);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(digest);
+        }
+    }
+
+    /**
+     * An operator (with its exponent, for POWER) applied to canonical
+     * operands, which are compared by identity.
+     */
+    private static final class OperationKey {
+        private final ComputationNodeType type;
+        private final int exponent;
+        private final List<ComputationNode> children;
+
+        OperationKey(ComputationNodeType type, int exponent, List<ComputationNode> children) {
+            this.type = type;
+            this.exponent = exponent;
+            this.children = children;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OperationKey))
+                return false;
+            OperationKey other = (OperationKey) o;
+            if (type != other.type || exponent != other.exponent || children.size() != other.children.size())
+                return false;
+            for (int i = 0; i < children.size(); i++) {
+                if (children.get(i) != other.children.get(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 31 * type.hashCode() + exponent;
+            for (ComputationNode child : children) {
+                h = 31 * h + System.identityHashCode(child);
+            }
+            return h;
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package parser;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import memory.SharedMatrix;
 
 public class ComputationNode {
 
+    // longer MULTIPLY chains are nested left to right; the ordering is cubic in the length
+    private static final int MAX_CHAIN_ORDERING = 256;
+
     private ComputationNodeType nodeType;
     private List<ComputationNode> children = null;
-    private double[][] matrix = null; // only used for MATRIX nodes
+    private int exponent = 0; // only used for POWER nodes
+    private volatile double[][] matrix = null; // only used for MATRIX nodes; flattened lazily from result
+    private volatile SharedMatrix result = null; // a computed result kept in the engine's layout
 
     public ComputationNode(String operatorStr, List<ComputationNode> children) throws IllegalArgumentException {
-        this.nodeType = mapOperator(operatorStr);
-        this.children = children;
+        this(operatorStr, children, 0);
+    }
+
+    /**
+     * Creates an operation node; {@code exponent} is only used by (and
+     * required for) the power operator "^".
+     */
+    public ComputationNode(String operatorStr, List<ComputationNode> children, int exponent)
+            throws IllegalArgumentException {
+        this(mapOperator(operatorStr), children, exponent);
     }
 
-    private ComputationNodeType mapOperator(String operatorStr) throws IllegalArgumentException {
+    private static ComputationNodeType mapOperator(String operatorStr) throws IllegalArgumentException {
         switch (operatorStr) {
             case "+":
                 return ComputationNodeType.ADD;
@@ -23,14 +45,27 @@ public class ComputationNode {
                 return ComputationNodeType.NEGATE;
             case "T":
                 return ComputationNodeType.TRANSPOSE;
+            case "^":
+                return ComputationNodeType.POWER;
             default:
                 throw new IllegalArgumentException("Unknown operator: " + operatorStr);
         }
     }
 
     public ComputationNode(ComputationNodeType nodeType, List<ComputationNode> children) {
+        this(nodeType, children, 0);
+    }
+
+    /**
+     * Creates an operation node. A POWER node raises its single operand to
+     * {@code exponent}, which must be positive; other nodes ignore it.
+     */
+    public ComputationNode(ComputationNodeType nodeType, List<ComputationNode> children, int exponent) {
+        if (nodeType == ComputationNodeType.POWER && exponent < 1)
+            throw new IllegalArgumentException("power needs a positive exponent, got " + exponent);
         this.nodeType = nodeType;
         this.children = children;
+        this.exponent = nodeType == ComputationNodeType.POWER ? exponent : 0;
     }
 
     public ComputationNode(double[][] matrix) {
@@ -46,6 +81,20 @@ public class ComputationNode {
         return children;
     }
 
+    /**
+     * The exponent of a POWER node, 0 for any other node.
+     */
+    public int getExponent() {
+        return exponent;
+    }
+
+    /**
+     * Replaces the operands, used by tree rewrites such as CSE.
+     */
+    void setChildren(List<ComputationNode> children) {
+        this.children = children;
+    }
+
     /**
      * Recursively finds the first resolvable node in the tree.
      * A resolvable node is defined as a node that is not of type MATRIX,
@@ -67,18 +116,214 @@ public class ComputationNode {
     }
 
     /**
-     * Restructures the tree to ensure that operations with more than two operands
-     * are nested in a left-associative manner.
-     * For example, A + B + C becomes (A + B) + C.
-     * Effectively, this converts n-ary operations (n > 2) into binary operations.
+     * Restructures the tree to ensure that products with more than two operands
+     * are nested into binary operations.
+     * ADD keeps all of its operands, since the engine sums them in a single
+     * k-way pass instead of one intermediate matrix per pair.
+     * A MULTIPLY chain whose shapes are unknown is nested left-associatively:
+     * A * B * C becomes (A * B) * C.
+     * A MULTIPLY chain whose operand shapes are known is parenthesized with the
+     * classic matrix-chain dynamic program, picking the order with the fewest
+     * scalar multiplications, e.g. A * (B * C) when B * C is small.
+     * A POWER node becomes the binary products of repeated squaring (see
+     * {@link #expandPower}).
+     * Every node of the tree is visited children first, using an explicit stack
+     * instead of recursion so that deep trees cannot overflow the call stack.
      */
     public void associativeNesting() {
-        if (children != null && children.size() > 2) {
-            ComputationNode lastChild = children.remove(children.size() - 1);
-            ComputationNode newNode = new ComputationNode(nodeType, children);
-            children = List.of(newNode, lastChild);
-            newNode.associativeNesting();
+        associativeNesting(true);
+    }
+
+    /**
+     * Like {@link #associativeNesting()}, but {@code expandPowers = false}
+     * leaves POWER nodes as they are, so that rewrites and CSE that run
+     * before the engine still see A^k as a single node.
+     */
+    void associativeNesting(boolean expandPowers) {
+        Map<ComputationNode, int[]> shapes = new IdentityHashMap<>();
+        Set<ComputationNode> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        // A^1 nodes below the root, and the operand their parents use instead
+        Map<ComputationNode, ComputationNode> forwarded = new IdentityHashMap<>();
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.peek();
+            if (shapes.containsKey(node)) {
+                stack.pop();
+            } else if (node.children == null || !expanded.add(node)) {
+                stack.pop();
+                if (!forwarded.isEmpty() && node.children != null)
+                    node.forwardChildren(forwarded);
+                if (node.nodeType == ComputationNodeType.POWER && expandPowers && node != this
+                        && node.exponent == 1 && node.children != null && node.children.size() == 1) {
+                    forwarded.put(node, node.children.get(0));
+                    shapes.put(node, shapes.get(node.children.get(0)));
+                    continue;
+                }
+                if (node.nodeType == ComputationNodeType.POWER) {
+                    if (expandPowers)
+                        node.expandPower(shapes);
+                } else if (node.children != null && node.children.size() > 2
+                        && node.nodeType != ComputationNodeType.ADD) {
+                    node.nest(shapes);
+                }
+                shapes.put(node, ShapeInference.shapeOf(node, shapes::get));
+            } else {
+                for (ComputationNode child : node.children) {
+                    if (!shapes.containsKey(child))
+                        stack.push(child);
+                }
+            }
+        }
+    }
+
+    private void forwardChildren(Map<ComputationNode, ComputationNode> forwarded) {
+        List<ComputationNode> operands = null;
+        for (int i = 0; i < children.size(); i++) {
+            ComputationNode target = forwarded.get(children.get(i));
+            if (target == null)
+                continue;
+            if (operands == null)
+                operands = new ArrayList<>(children);
+            operands.set(i, target);
+        }
+        if (operands != null)
+            children = operands;
+    }
+
+    /**
+     * Turns this POWER node into the products of binary exponentiation:
+     * A^13 becomes (A * A^4) * A^8, with A^2 = A * A, A^4 = A^2 * A^2 and so
+     * on, so k copies of A take about 2 log2(k) products instead of k - 1.
+     * Every square is a node of its own that the next square and the
+     * accumulated product share, and a product of two equal operands is
+     * computed in place, so the squaring steps reuse the buffers of the
+     * squares before them (see LinearAlgebraEngine). An A^1 below the root
+     * is skipped by its parents (see {@link #associativeNesting}); at the
+     * root it takes its operand's place.
+     */
+    private void expandPower(Map<ComputationNode, int[]> shapes) {
+        if (children == null || children.size() != 1)
+            throw new IllegalArgumentException("POWER needs exactly one operand");
+        ComputationNode operand = children.get(0);
+        if (exponent == 1) {
+            if (operand.nodeType == ComputationNodeType.MATRIX) {
+                // the input stays the caller's, the result is a copy of it
+                double[][] source = operand.getMatrix();
+                double[][] copy = new double[source.length][];
+                for (int i = 0; i < source.length; i++) {
+                    copy[i] = source[i].clone();
+                }
+                resolve(copy);
+            } else {
+                // nothing else can use the root's operand, so the root takes its place
+                nodeType = operand.nodeType;
+                children = operand.children;
+                exponent = operand.exponent;
+            }
+            return;
         }
+        ComputationNode square = operand;
+        ComputationNode product = null;
+        for (int e = exponent;;) {
+            if ((e & 1) != 0)
+                product = product == null ? square : multiply(product, square, shapes);
+            e >>>= 1;
+            if (e == 0)
+                break;
+            square = multiply(square, square, shapes);
+        }
+        // the last product is only referenced here, so this node takes its place
+        nodeType = ComputationNodeType.MULTIPLY;
+        children = product.children;
+        exponent = 0;
+    }
+
+    private static ComputationNode multiply(ComputationNode left, ComputationNode right,
+            Map<ComputationNode, int[]> shapes) {
+        ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(left, right));
+        shapes.put(product, ShapeInference.shapeOf(product, shapes::get));
+        return product;
+    }
+
+    /**
+     * Replaces this node's n > 2 operands by two, nesting the rest into new
+     * nodes of the same type. Operand shapes must already be in {@code shapes}.
+     */
+    private void nest(Map<ComputationNode, int[]> shapes) {
+        int n = children.size();
+        int[] dims = nodeType == ComputationNodeType.MULTIPLY && n <= MAX_CHAIN_ORDERING
+                ? chainDimensions(shapes) : null;
+        if (dims == null) {
+            // ((c0 op c1) op c2) ... op c(n-2), and the node itself applies op c(n-1)
+            ComputationNode nested = new ComputationNode(nodeType, List.of(children.get(0), children.get(1)));
+            shapes.put(nested, ShapeInference.shapeOf(nested, shapes::get));
+            for (int i = 2; i < n - 1; i++) {
+                nested = new ComputationNode(nodeType, List.of(nested, children.get(i)));
+                shapes.put(nested, ShapeInference.shapeOf(nested, shapes::get));
+            }
+            children = List.of(nested, children.get(n - 1));
+            return;
+        }
+        int[][] split = chainOrder(dims);
+        int k = split[0][n - 1];
+        children = List.of(chain(0, k, split, shapes), chain(k + 1, n - 1, split, shapes));
+    }
+
+    /**
+     * The chain's dimensions p[0..n] (operand i is p[i] x p[i+1]), or null if
+     * a shape is unknown or two neighbours do not fit.
+     */
+    private int[] chainDimensions(Map<ComputationNode, int[]> shapes) {
+        int n = children.size();
+        int[] dims = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int[] shape = shapes.get(children.get(i));
+            if (shape == null || (i > 0 && shape[0] != dims[i]))
+                return null;
+            dims[i] = shape[0];
+            dims[i + 1] = shape[1];
+        }
+        return dims;
+    }
+
+    /**
+     * Matrix-chain dynamic program: split[i][j] is the operand after which
+     * the cheapest product of operands i..j is split into two.
+     */
+    private static int[][] chainOrder(int[] dims) {
+        int n = dims.length - 1;
+        long[][] cost = new long[n][n];
+        int[][] split = new int[n][n];
+        for (int length = 2; length <= n; length++) {
+            for (int i = 0; i + length - 1 < n; i++) {
+                int j = i + length - 1;
+                cost[i][j] = Long.MAX_VALUE;
+                for (int k = i; k < j; k++) {
+                    long c = cost[i][k] + cost[k + 1][j] + (long) dims[i] * dims[k + 1] * dims[j + 1];
+                    // strict: among equally cheap orders keep the leftmost split, i.e. left nesting
+                    if (c < cost[i][j]) {
+                        cost[i][j] = c;
+                        split[i][j] = k;
+                    }
+                }
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Builds the product of operands i..j in the order chosen by chainOrder.
+     * Recursion depth is bounded by the chain length.
+     */
+    private ComputationNode chain(int i, int j, int[][] split, Map<ComputationNode, int[]> shapes) {
+        if (i == j)
+            return children.get(i);
+        int k = split[i][j];
+        ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(chain(i, k, split, shapes), chain(k + 1, j, split, shapes)));
+        shapes.put(product, ShapeInference.shapeOf(product, shapes::get));
+        return product;
     }
 
     /**
@@ -87,10 +332,46 @@ public class ComputationNode {
     public void resolve(double[][] matrix) {
         this.nodeType = ComputationNodeType.MATRIX;
         this.children = null;
+        this.exponent = 0;
+        this.result = null;
         this.matrix = matrix;
     }
 
+    /**
+     * Resolves this node with a result that stays in the engine's
+     * SharedMatrix, in whatever orientation it was computed. A parent can
+     * consume it as an operand without a copy; it is only flattened to a
+     * double[][] if someone calls {@link #getMatrix()}, e.g. to write the
+     * output.
+     */
+    public void resolve(SharedMatrix result) {
+        this.nodeType = ComputationNodeType.MATRIX;
+        this.children = null;
+        this.exponent = 0;
+        this.matrix = null;
+        this.result = result;
+    }
+
+    /**
+     * The resident result of a computed node, or null if the node holds a
+     * plain matrix (an input, or a result that was already flattened).
+     */
+    public SharedMatrix getSharedMatrix() {
+        return result;
+    }
+
     public double[][] getMatrix() {
+        double[][] m = matrix;
+        if (m != null) {
+            return m;
+        }
+        synchronized (this) {
+            // flattened once, however many readers ask at the same time
+            if (matrix == null && result != null) {
+                matrix = result.readRowMajor();
+                result = null;
+            }
+        }
         if (matrix == null) {
             throw new IllegalStateException("This node does not contain a matrix.");
         }
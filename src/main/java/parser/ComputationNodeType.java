@@ -9,5 +9,7 @@ public enum ComputationNodeType {
     MULTIPLY,
     NEGATE,
     TRANSPOSE,
+    SUBTRACT, // left minus right; only created by the rewriter, e.g. for A + -B
     MATRIX,
+    POWER, // single operand raised to the node's exponent; after MATRIX so older ordinals keep their value
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rule-based algebraic optimizer, run on a parsed tree before execution.
+ * Rules (by report name):
+ * <ul>
+ * <li>double-transpose: T(T(A)) becomes A</li>
+ * <li>double-negate: -(-A) becomes A</li>
+ * <li>negate-through-multiply: negated factors of a product are gathered
+ * into one negation, placed on whichever of the two factors or the product
+ * is smallest; an even number of negations cancels out</li>
+ * <li>transpose-through-multiply: T(A)*T(B) becomes T(B*A)</li>
+ * <li>fused-subtract: A + -B (or -B + A) becomes a single SUBTRACT pass</li>
+ * </ul>
+ * double-transpose, double-negate and fused-subtract always remove a pass,
+ * and so does negate-through-multiply when both factors are negated; they
+ * fire whatever the shapes. Otherwise the two product rules only fire when
+ * the estimated cost after the rewrite is strictly lower. The estimate
+ * counts the elements that each pass reads or writes, with shapes inferred
+ * from the matrix literals ({@link ShapeInference}), and such a rule is
+ * skipped where a shape is unknown.
+ * Subtrees shared by several parents (after CSE) are rewritten once.
+ */
+public class ExpressionRewriter {
+
+    static final String DOUBLE_TRANSPOSE = "double-transpose";
+    static final String DOUBLE_NEGATE = "double-negate";
+    static final String NEGATE_THROUGH_MULTIPLY = "negate-through-multiply";
+    static final String TRANSPOSE_THROUGH_MULTIPLY = "transpose-through-multiply";
+    static final String FUSED_SUBTRACT = "fused-subtract";
+
+    private final Map<String, Integer> fired = new LinkedHashMap<>();
+    private final Map<ComputationNode, int[]> shapes = new IdentityHashMap<>();
+
+    /**
+     * Rewrites the tree under {@code root} and returns the new root, which may
+     * be a different node (e.g. for T(T(A)) at the top). N-ary products are
+     * nested into binary ones first, so the rules see every operand pair;
+     * sums stay n-ary, and the fused subtract only applies to two operands.
+     * Powers are left for the engine to expand, so a later CSE pass can
+     * still merge equal ones before they turn into products.
+     */
+    public ComputationNode rewrite(ComputationNode root) {
+        if (root == null)
+            throw new IllegalArgumentException("computation root cannot be null");
+        fired.clear();
+        shapes.clear();
+        root.associativeNesting(false);
+
+        // post-order without recursion; replacement[node] is the rewritten node
+        Map<ComputationNode, ComputationNode> replacement = new IdentityHashMap<>();
+        Set<ComputationNode> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.peek();
+            if (replacement.containsKey(node)) {
+                stack.pop();
+            } else if (node.getNodeType() == ComputationNodeType.MATRIX || !expanded.add(node)) {
+                stack.pop();
+                if (node.getNodeType() != ComputationNodeType.MATRIX) {
+                    List<ComputationNode> children = new ArrayList<>(node.getChildren().size());
+                    for (ComputationNode child : node.getChildren()) {
+                        children.add(replacement.get(child));
+                    }
+                    node.setChildren(children);
+                }
+                replacement.put(node, simplify(node));
+            } else {
+                for (ComputationNode child : node.getChildren()) {
+                    if (!replacement.containsKey(child))
+                        stack.push(child);
+                }
+            }
+        }
+        return replacement.get(root);
+    }
+
+    /**
+     * Applies rules to a node whose children are already simplified, until
+     * none fires. Each rule removes a pass or strictly lowers the estimated
+     * cost, so this ends.
+     */
+    private ComputationNode simplify(ComputationNode node) {
+        while (true) {
+            ComputationNode next = applyRule(node);
+            if (next == null) {
+                shape(node);
+                return node;
+            }
+            node = next;
+        }
+    }
+
+    private ComputationNode applyRule(ComputationNode node) {
+        ComputationNodeType type = node.getNodeType();
+        List<ComputationNode> children = node.getChildren();
+        if (type == ComputationNodeType.MATRIX || children == null)
+            return null;
+
+        if ((type == ComputationNodeType.TRANSPOSE || type == ComputationNodeType.NEGATE)
+                && children.size() == 1 && children.get(0).getNodeType() == type
+                && children.get(0).getChildren().size() == 1) {
+            record(type == ComputationNodeType.TRANSPOSE ? DOUBLE_TRANSPOSE : DOUBLE_NEGATE);
+            return children.get(0).getChildren().get(0);
+        }
+        if (type == ComputationNodeType.MULTIPLY && children.size() == 2) {
+            ComputationNode rewritten = negateThroughMultiply(children.get(0), children.get(1));
+            if (rewritten == null)
+                rewritten = transposeThroughMultiply(children.get(0), children.get(1));
+            return rewritten;
+        }
+        if (type == ComputationNodeType.ADD && children.size() == 2) {
+            ComputationNode left = children.get(0);
+            ComputationNode right = children.get(1);
+            if (isUnary(right, ComputationNodeType.NEGATE)) {
+                record(FUSED_SUBTRACT);
+                return node(ComputationNodeType.SUBTRACT, left, right.getChildren().get(0));
+            }
+            if (isUnary(left, ComputationNodeType.NEGATE)) {
+                record(FUSED_SUBTRACT);
+                return node(ComputationNodeType.SUBTRACT, right, left.getChildren().get(0));
+            }
+        }
+        return null;
+    }
+
+    private ComputationNode negateThroughMultiply(ComputationNode left, ComputationNode right) {
+        boolean leftNegated = isUnary(left, ComputationNodeType.NEGATE);
+        boolean rightNegated = isUnary(right, ComputationNodeType.NEGATE);
+        if (!leftNegated && !rightNegated)
+            return null;
+        ComputationNode a = leftNegated ? left.getChildren().get(0) : left;
+        ComputationNode b = rightNegated ? right.getChildren().get(0) : right;
+        if (leftNegated && rightNegated) {
+            // the signs cancel; two negation passes are saved
+            record(NEGATE_THROUGH_MULTIPLY);
+            return simplify(node(ComputationNodeType.MULTIPLY, a, b));
+        }
+        long before = ShapeInference.size(shape(leftNegated ? a : b));
+        long sizeA = ShapeInference.size(shape(a));
+        long sizeB = ShapeInference.size(shape(b));
+        ComputationNode product = node(ComputationNodeType.MULTIPLY, a, b);
+        long sizeProduct = ShapeInference.size(shape(product));
+        if (sizeA == 0 || sizeB == 0 || sizeProduct == 0)
+            return null;
+        long best = Math.min(sizeProduct, Math.min(sizeA, sizeB));
+        if (best >= before)
+            return null; // the negation already sits on the cheapest side
+        record(NEGATE_THROUGH_MULTIPLY);
+        if (best == sizeProduct)
+            return node(ComputationNodeType.NEGATE, simplify(product));
+        if (best == sizeA)
+            return simplify(node(ComputationNodeType.MULTIPLY, node(ComputationNodeType.NEGATE, a), b));
+        return simplify(node(ComputationNodeType.MULTIPLY, a, node(ComputationNodeType.NEGATE, b)));
+    }
+
+    private ComputationNode transposeThroughMultiply(ComputationNode left, ComputationNode right) {
+        if (!isUnary(left, ComputationNodeType.TRANSPOSE) || !isUnary(right, ComputationNodeType.TRANSPOSE))
+            return null;
+        ComputationNode a = left.getChildren().get(0);
+        ComputationNode b = right.getChildren().get(0);
+        ComputationNode product = node(ComputationNodeType.MULTIPLY, b, a);
+        long before = ShapeInference.size(shape(a)) + ShapeInference.size(shape(b));
+        long after = ShapeInference.size(shape(product));
+        if (after == 0 || after >= before)
+            return null;
+        record(TRANSPOSE_THROUGH_MULTIPLY);
+        return node(ComputationNodeType.TRANSPOSE, simplify(product));
+    }
+
+    private static boolean isUnary(ComputationNode node, ComputationNodeType type) {
+        return node.getNodeType() == type && node.getChildren() != null && node.getChildren().size() == 1;
+    }
+
+    private static ComputationNode node(ComputationNodeType type, ComputationNode... children) {
+        return new ComputationNode(type, List.of(children));
+    }
+
+    private int[] shape(ComputationNode node) {
+        // children were shaped before their parent, so this never recurses deeply
+        if (!shapes.containsKey(node))
+            shapes.put(node, ShapeInference.shapeOf(node, this::shape));
+        return shapes.get(node);
+    }
+
+    private void record(String rule) {
+        fired.merge(rule, 1, Integer::sum);
+    }
+
+    /**
+     * How often each rule fired during the last rewrite, in first-fired order.
+     */
+    public Map<String, Integer> getFiredRules() {
+        return Collections.unmodifiableMap(fired);
+    }
+
+    @Override
+    public String toString() {
+        if (fired.isEmpty())
+            return "Rewrites: none";
+        StringBuilder sb = new StringBuilder("Rewrites:");
+        for (Map.Entry<String, Integer> entry : fired.entrySet()) {
+            sb.append(" ").append(entry.getKey()).append("=").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
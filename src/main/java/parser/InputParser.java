@@ -32,7 +32,23 @@ public class InputParser {
             for (int i = 0; i < operandJsonNodes.size(); i++) {
                 operands.add(parseJsonNode(operandJsonNodes.get(i)));
             }
-            return new ComputationNode(operatorStr, operands);
+            // only the power operator "^" takes an exponent, e.g. {"operator": "^", "exponent": 8, ...}
+            boolean power = operatorStr.equals("^");
+            if (!jsonNode.has("exponent")) {
+                if (power) {
+                    throw new ParseException("Power operator \"^\" needs an exponent", 0);
+                }
+                return new ComputationNode(operatorStr, operands);
+            }
+            if (!power) {
+                throw new ParseException("Only the power operator \"^\" takes an exponent, not " + operatorStr, 0);
+            }
+            JsonNode exponentJsonNode = jsonNode.get("exponent");
+            if (!exponentJsonNode.canConvertToInt() || !exponentJsonNode.isIntegralNumber()
+                    || exponentJsonNode.asInt() < 1) {
+                throw new ParseException("Invalid exponent: " + exponentJsonNode.toString(), 0);
+            }
+            return new ComputationNode(operatorStr, operands, exponentJsonNode.asInt());
         }
         else if (jsonNode.isArray()) {
             if (jsonNode.size() == 0) {
@@ -0,0 +1,68 @@
+package parser;
+
+import java.util.function.Function;
+
+/**
+ * Static shape (rows x columns) of computation nodes, derived from the
+ * matrix literals without computing anything. A shape is an int[2] of
+ * {rows, columns}, or null when it is unknown: an empty matrix, or operands
+ * whose sizes do not fit the operation (the engine reports those when it
+ * runs the node).
+ */
+public final class ShapeInference {
+
+    private ShapeInference() {
+    }
+
+    /**
+     * Shape of {@code node} given a function that yields the shapes of its
+     * children, so callers can infer bottom-up without recursion.
+     */
+    public static int[] shapeOf(ComputationNode node, Function<ComputationNode, int[]> childShape) {
+        ComputationNodeType type = node.getNodeType();
+        if (type == ComputationNodeType.MATRIX) {
+            double[][] matrix = node.getMatrix();
+            if (matrix.length == 0 || matrix[0].length == 0)
+                return null;
+            return new int[] { matrix.length, matrix[0].length };
+        }
+        if (node.getChildren() == null || node.getChildren().isEmpty())
+            return null;
+        int[] first = childShape.apply(node.getChildren().get(0));
+        if (first == null)
+            return null;
+        switch (type) {
+            case NEGATE:
+                return first;
+            case TRANSPOSE:
+                return new int[] { first[1], first[0] };
+            case POWER: // only square matrices have powers
+                return first[0] == first[1] ? first : null;
+            case MULTIPLY: {
+                int[] shape = first;
+                for (int i = 1; i < node.getChildren().size(); i++) {
+                    int[] next = childShape.apply(node.getChildren().get(i));
+                    if (next == null || next[0] != shape[1])
+                        return null;
+                    shape = new int[] { shape[0], next[1] };
+                }
+                return shape;
+            }
+            default: { // ADD, SUBTRACT: every operand has the same shape
+                for (ComputationNode child : node.getChildren()) {
+                    int[] next = childShape.apply(child);
+                    if (next == null || next[0] != first[0] || next[1] != first[1])
+                        return null;
+                }
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Number of elements of a shape, 0 if unknown.
+     */
+    public static long size(int[] shape) {
+        return shape == null ? 0 : (long) shape[0] * shape[1];
+    }
+}
@@ -0,0 +1,16 @@
+package scheduling;
+
+/**
+ * How {@link TiredExecutor#submitRanges} splits a range of work into tasks.
+ */
+public enum ChunkPolicy {
+    /** One task per index; every task has the same size and fatigue decides who runs it. */
+    EQUAL,
+    /**
+     * One task per live worker (fewer when several such batches run at once,
+     * so they split the pool); each worker repeatedly claims a chunk sized in
+     * proportion to its own measured throughput until the range is exhausted,
+     * so faster workers process more indexes and the batch finishes sooner.
+     */
+    THROUGHPUT
+}
@@ -0,0 +1,21 @@
+package scheduling;
+
+/**
+ * How a {@link TiredExecutor} moves tasks to its workers.
+ */
+public enum DispatchMode {
+    /**
+     * Tasks wait in a locked priority queue and are handed to the least
+     * fatigued idle worker through its single-slot handoff queue. Supports
+     * priorities, deadlines, elastic sizing and every overflow policy.
+     */
+    HANDOFF,
+    /**
+     * Tasks go into a preallocated lock-free ring buffer and idle workers claim
+     * them directly, a few at a time. Lowest dispatch overhead, but tasks run in
+     * FIFO order (priorities and deadlines are ignored) and whichever worker is
+     * free takes the next task, regardless of fatigue. SHED_LOWEST behaves like
+     * REJECT.
+     */
+    RING
+}
@@ -0,0 +1,32 @@
+package scheduling;
+
+/**
+ * Controls how an idle {@link TiredThread} waits for its next task.
+ * Blocking waits cost nothing while idle but pay the OS wake-up latency for
+ * every task; spinning keeps the core busy so that a new task is picked up
+ * almost immediately.
+ */
+public enum HandoffMode {
+    /** Park on the handoff queue right away. */
+    BLOCKING(0, 0),
+    /** Spin briefly, then yield the core for a while, then park. */
+    SPIN_THEN_PARK(50_000, 200_000),
+    /** Spin and yield for a long time before parking; lowest latency, highest CPU use. */
+    SPIN(2_000_000, 50_000_000);
+
+    private final long spinNanos; // busy-wait budget using Thread.onSpinWait()
+    private final long yieldNanos; // Thread.yield() budget after spinning
+
+    HandoffMode(long spinNanos, long yieldNanos) {
+        this.spinNanos = spinNanos;
+        this.yieldNanos = yieldNanos;
+    }
+
+    public long getSpinNanos() {
+        return spinNanos;
+    }
+
+    public long getYieldNanos() {
+        return yieldNanos;
+    }
+}
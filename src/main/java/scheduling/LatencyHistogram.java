@@ -0,0 +1,84 @@
+package scheduling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with power-of-two buckets.
+ * Recording is a couple of atomic increments, so it can sit on the dispatch
+ * path; percentiles are approximate (within a factor of two).
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    // bucket i counts values in [2^(i-1), 2^i), bucket 0 counts zero
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : sum.get() / (double) n;
+    }
+
+    /**
+     * Approximate value below which the given fraction of the recorded values
+     * fall: the upper bound of the bucket holding that rank, capped at the max.
+     */
+    public long getPercentile(double fraction) {
+        if (fraction < 0.0 || fraction > 1.0)
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        long n = count.get();
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                long upper = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * One-line summary in milliseconds, in the style of the worker report.
+     */
+    public String summary() {
+        return "count=" + getCount()
+                + " | mean: " + getMean() / 1_000_000.0 + " ms"
+                + " | p50: " + getPercentile(0.5) / 1_000_000.0 + " ms"
+                + " | p99: " + getPercentile(0.99) / 1_000_000.0 + " ms"
+                + " | max: " + getMax() / 1_000_000.0 + " ms";
+    }
+}
@@ -0,0 +1,31 @@
+package scheduling;
+
+import java.util.List;
+
+/**
+ * The least fatigued idle worker runs the next task, which keeps the
+ * accumulated fatigue of the workers close together. The executor's default.
+ */
+public class LeastFatiguePolicy implements SchedulingPolicy {
+
+    static final String NAME = "least-fatigue";
+
+    @Override
+    public TiredThread select(List<TiredThread> idle, Object affinity) {
+        return leastFatigued(idle);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    static TiredThread leastFatigued(List<TiredThread> idle) {
+        TiredThread best = idle.get(0);
+        for (TiredThread w : idle) {
+            if (w.compareTo(best) < 0)
+                best = w;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,33 @@
+package scheduling;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Sends a task to the worker that last ran a task of the same batch, if that
+ * worker is idle, so it finds the batch's data still in its caches. Otherwise
+ * falls back to the least fatigued idle worker.
+ */
+public class LocalityStickyPolicy implements SchedulingPolicy {
+
+    static final String NAME = "locality-sticky";
+
+    // guarded by the executor's lock; weak keys so finished batches are dropped
+    private final Map<Object, TiredThread> lastWorker = new WeakHashMap<>();
+
+    @Override
+    public TiredThread select(List<TiredThread> idle, Object affinity) {
+        TiredThread chosen = affinity == null ? null : lastWorker.get(affinity);
+        if (chosen == null || !idle.contains(chosen))
+            chosen = LeastFatiguePolicy.leastFatigued(idle);
+        if (affinity != null)
+            lastWorker.put(affinity, chosen);
+        return chosen;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
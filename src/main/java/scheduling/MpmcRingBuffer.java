@@ -0,0 +1,144 @@
+package scheduling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, preallocated, lock-free multi-producer/multi-consumer queue
+ * (Vyukov's array queue). Every slot carries a sequence number that tells
+ * producers and consumers whose turn it is, so offer and poll are a single CAS
+ * on the tail or head counter in the uncontended case.
+ * Sequence numbers, element references and the two counters are spread over
+ * separate cache lines, so neighbouring slots and the head/tail counters do
+ * not false-share.
+ */
+public class MpmcRingBuffer<E> {
+
+    private static final int LONG_PAD = 8; // longs per cache line (64 bytes)
+    private static final int REF_PAD = 16; // references per cache line, with compressed oops
+    private static final int TAIL = LONG_PAD; // index of the enqueue counter in counters
+    private static final int HEAD = 2 * LONG_PAD; // index of the dequeue counter in counters
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray counters = new AtomicLongArray(3 * LONG_PAD);
+
+    /**
+     * @param capacity number of slots, must be a power of two
+     */
+    public MpmcRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("ring buffer capacity must be a power of two >= 2");
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity * LONG_PAD);
+        this.elements = new AtomicReferenceArray<>(capacity * REF_PAD);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i * LONG_PAD, i);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds the element unless the buffer is full.
+     *
+     * @return false if the buffer was full
+     */
+    public boolean offer(E element) {
+        if (element == null)
+            throw new IllegalArgumentException("element cannot be null");
+        long pos = counters.get(TAIL);
+        while (true) {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot * LONG_PAD) - pos;
+            if (diff == 0) {
+                // the slot is free for this lap; claim it
+                if (counters.compareAndSet(TAIL, pos, pos + 1)) {
+                    elements.lazySet(slot * REF_PAD, element);
+                    // publish: consumers read the element after seeing pos + 1
+                    sequences.lazySet(slot * LONG_PAD, pos + 1);
+                    return true;
+                }
+                pos = counters.get(TAIL);
+            } else if (diff < 0) {
+                return false; // the consumer of the previous lap has not freed the slot yet
+            } else {
+                pos = counters.get(TAIL); // another producer claimed it, retry
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the oldest element, or null if the buffer is empty.
+     */
+    public E poll() {
+        long pos = counters.get(HEAD);
+        while (true) {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot * LONG_PAD) - (pos + 1);
+            if (diff == 0) {
+                if (counters.compareAndSet(HEAD, pos, pos + 1)) {
+                    return take(slot, pos);
+                }
+                pos = counters.get(HEAD);
+            } else if (diff < 0) {
+                return null; // not published yet
+            } else {
+                pos = counters.get(HEAD);
+            }
+        }
+    }
+
+    /**
+     * Batched claim: removes up to {@code max} consecutive published elements
+     * with a single CAS on the head counter and stores them in {@code out}.
+     *
+     * @return the number of elements removed
+     */
+    public int drainTo(E[] out, int max) {
+        if (max > out.length)
+            throw new IllegalArgumentException("max is larger than the output array");
+        while (true) {
+            long pos = counters.get(HEAD);
+            int ready = 0;
+            // count consecutive published slots; a published slot stays published
+            // until its consumer moves the head past it, which our CAS rules out
+            while (ready < max && sequences.get((int) ((pos + ready) & mask) * LONG_PAD) == pos + ready + 1) {
+                ready++;
+            }
+            if (ready == 0)
+                return 0;
+            if (counters.compareAndSet(HEAD, pos, pos + ready)) {
+                for (int i = 0; i < ready; i++) {
+                    out[i] = take((int) ((pos + i) & mask), pos + i);
+                }
+                return ready;
+            }
+        }
+    }
+
+    private E take(int slot, long pos) {
+        E element = elements.get(slot * REF_PAD);
+        elements.lazySet(slot * REF_PAD, null);
+        // free the slot for the producer of the next lap
+        sequences.lazySet(slot * LONG_PAD, pos + capacity);
+        return element;
+    }
+
+    /**
+     * Approximate number of elements; exact only when no one is offering or polling.
+     */
+    public int size() {
+        long size = counters.get(TAIL) - counters.get(HEAD);
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,18 @@
+package scheduling;
+
+/**
+ * What {@link TiredExecutor#submit} does when the pending queue is full.
+ */
+public enum OverflowPolicy {
+    /** Block the caller until there is room, up to the configured timeout, then reject. */
+    BLOCK,
+    /** Reject the task right away with a RejectedExecutionException. */
+    REJECT,
+    /** Run the task on the submitting thread. */
+    CALLER_RUNS,
+    /**
+     * Drop the least important queued task (lowest class, latest deadline) to make
+     * room, or reject the new task if it is the least important one.
+     */
+    SHED_LOWEST
+}
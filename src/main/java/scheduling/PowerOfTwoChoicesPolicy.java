@@ -0,0 +1,33 @@
+package scheduling;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples two idle workers at random and picks the less fatigued one. Nearly
+ * as balanced as least-fatigue while looking at two workers instead of all.
+ */
+public class PowerOfTwoChoicesPolicy implements SchedulingPolicy {
+
+    static final String NAME = "power-of-two";
+
+    @Override
+    public TiredThread select(List<TiredThread> idle, Object affinity) {
+        int size = idle.size();
+        if (size == 1)
+            return idle.get(0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first)
+            second++;
+        TiredThread a = idle.get(first);
+        TiredThread b = idle.get(second);
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
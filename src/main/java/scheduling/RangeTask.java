@@ -0,0 +1,15 @@
+package scheduling;
+
+/**
+ * Work over a contiguous range of indexes (typically matrix rows), used by
+ * {@link TiredExecutor#submitRanges} so that the executor decides how the
+ * range is split between workers.
+ */
+@FunctionalInterface
+public interface RangeTask {
+
+    /**
+     * Processes indexes {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    void run(int from, int to);
+}
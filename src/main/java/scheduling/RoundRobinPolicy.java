@@ -0,0 +1,36 @@
+package scheduling;
+
+import java.util.List;
+
+/**
+ * Workers take turns by id: the next task goes to the first idle worker whose
+ * id follows the one picked last, wrapping around. Ignores fatigue, so fast
+ * and slow workers get the same number of tasks.
+ */
+public class RoundRobinPolicy implements SchedulingPolicy {
+
+    static final String NAME = "round-robin";
+
+    private int nextId = 0; // guarded by the executor's lock
+
+    @Override
+    public TiredThread select(List<TiredThread> idle, Object affinity) {
+        TiredThread after = null; // lowest id >= nextId
+        TiredThread lowest = null; // lowest id overall, used when wrapping around
+        for (TiredThread w : idle) {
+            int id = w.getWorkerId();
+            if (id >= nextId && (after == null || id < after.getWorkerId()))
+                after = w;
+            if (lowest == null || id < lowest.getWorkerId())
+                lowest = w;
+        }
+        TiredThread chosen = after != null ? after : lowest;
+        nextId = chosen.getWorkerId() + 1;
+        return chosen;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,51 @@
+package scheduling;
+
+import java.util.List;
+
+/**
+ * Decides which idle worker of a {@link TiredExecutor} runs the next queued
+ * task. Implementations may keep state (a cursor, recent assignments), so an
+ * instance should serve a single executor.
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * Picks the worker for the next task. Called while the executor's lock is
+     * held, so it must be quick and must not block.
+     *
+     * @param idle     the idle workers, never empty; must not be modified
+     * @param affinity key shared by related tasks (the batch a task belongs
+     *                 to), or null if the task has none
+     * @return one of the workers in {@code idle}
+     */
+    TiredThread select(List<TiredThread> idle, Object affinity);
+
+    /**
+     * Short name shown in the worker report.
+     */
+    String getName();
+
+    /**
+     * Creates a new instance of a built-in policy by its report name:
+     * least-fatigue, round-robin, power-of-two, locality-sticky or
+     * throughput-weighted.
+     */
+    static SchedulingPolicy forName(String name) {
+        if (name == null)
+            throw new IllegalArgumentException("policy name cannot be null");
+        switch (name) {
+            case LeastFatiguePolicy.NAME:
+                return new LeastFatiguePolicy();
+            case RoundRobinPolicy.NAME:
+                return new RoundRobinPolicy();
+            case PowerOfTwoChoicesPolicy.NAME:
+                return new PowerOfTwoChoicesPolicy();
+            case LocalityStickyPolicy.NAME:
+                return new LocalityStickyPolicy();
+            case ThroughputWeightedPolicy.NAME:
+                return new ThroughputWeightedPolicy();
+            default:
+                throw new IllegalArgumentException("unknown scheduling policy: " + name);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package scheduling;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Completion tracker for a group of tasks submitted together by
+ * {@link TiredExecutor#submitAll(Iterable)}.
+ * Each submitAll call owns its batch, so several callers can share one executor
+ * and each of them waits only for its own tasks.
+ * The first task that throws (or is dropped by the executor) cancels the batch:
+ * tasks that have not started yet are skipped, running ones can poll
+ * {@link TiredExecutor#cancellationRequested()}, and the waiting caller gets the
+ * failure right away.
+ * The batch also keeps its own tasks in submission order, so a worker waiting
+ * for it can take the next one in O(1) without searching the executor's
+ * queue (see {@link #pollUnclaimed}). Every task is claimed exactly once,
+ * either there or by whoever the executor hands it to; the other copy is a
+ * no-op.
+ */
+class TaskBatch {
+
+    // the batch of the task running on the current thread, for cancellationRequested()
+    private static final ThreadLocal<TaskBatch> CURRENT = new ThreadLocal<>();
+
+    private int pending = 0; // tasks registered and not yet finished
+    private Throwable failure = null; // first task failure, or why a task was dropped
+    private volatile boolean cancelled = false;
+    private final ConcurrentLinkedQueue<BatchTask> unclaimed = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A task of this batch, as seen by the executor. If the executor drops it
+     * without running it (e.g. load shedding), it must call {@link #reject}.
+     */
+    final class BatchTask implements Runnable {
+        private final Runnable task;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private BatchTask(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * True for the one caller that gets to run (or drop) this task.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (claim())
+                runClaimed();
+        }
+
+        /**
+         * Runs a task the caller has claimed.
+         */
+        void runClaimed() {
+            if (cancelled) {
+                // the batch already failed, don't waste a worker on it
+                arrive();
+                return;
+            }
+            TaskBatch previous = CURRENT.get();
+            CURRENT.set(TaskBatch.this);
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // keep the worker alive; the failure goes back to the submitter
+                fail(t);
+            } finally {
+                CURRENT.set(previous);
+                arrive();
+            }
+        }
+
+        TaskBatch batch() {
+            return TaskBatch.this;
+        }
+
+        void reject(RuntimeException reason) {
+            if (claim()) {
+                fail(reason);
+                arrive();
+            }
+        }
+
+        /**
+         * Drops the task because its batch was cancelled, or because it could
+         * not be submitted.
+         */
+        void skip() {
+            if (claim())
+                arrive();
+        }
+    }
+
+    synchronized void register() {
+        pending++;
+    }
+
+    synchronized void arrive() {
+        pending--;
+        if (pending == 0) {
+            this.notifyAll();
+        }
+    }
+
+    private synchronized void fail(Throwable reason) {
+        if (failure == null) {
+            failure = reason;
+        }
+        cancelled = true;
+        this.notifyAll();
+    }
+
+    /**
+     * True once every task finished or the batch failed.
+     */
+    synchronized boolean isDone() {
+        return pending == 0 || failure != null;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * True if the task running on the current thread belongs to a cancelled batch.
+     */
+    static boolean currentCancelled() {
+        TaskBatch batch = CURRENT.get();
+        return batch != null && batch.cancelled;
+    }
+
+    /**
+     * Wraps the task so that the batch is notified when it finishes,
+     * whether it completed normally or threw.
+     */
+    BatchTask wrap(Runnable task) {
+        BatchTask wrapped = new BatchTask(task);
+        unclaimed.add(wrapped);
+        return wrapped;
+    }
+
+    /**
+     * Claims the next task of this batch that nobody claimed yet, or returns
+     * null if there is none. Copies that were already claimed are discarded
+     * on the way, so each task is looked at once.
+     */
+    BatchTask pollUnclaimed() {
+        BatchTask next;
+        while ((next = unclaimed.poll()) != null) {
+            if (next.claim())
+                return next;
+        }
+        return null;
+    }
+
+    /**
+     * Waits until every registered task finished, or until the first failure,
+     * which is rethrown. If {@code timeoutNanos} is positive and expires first,
+     * the batch is cancelled and a CancellationException is thrown.
+     */
+    synchronized void await(long timeoutNanos) throws InterruptedException {
+        long waitUntil = System.nanoTime() + timeoutNanos;
+        while (pending > 0 && failure == null) {
+            if (timeoutNanos > 0) {
+                long remaining = waitUntil - System.nanoTime();
+                if (remaining <= 0) {
+                    cancelled = true;
+                    throw new CancellationException("tasks did not finish within "
+                            + timeoutNanos / 1_000_000 + " ms");
+                }
+                // waiting until pending = 0 or a failure (notified by arrive / fail)
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } else {
+                this.wait();
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package scheduling;
+
+/**
+ * Priority classes of tasks submitted to a {@link TiredExecutor}.
+ * Higher classes are dispatched first; within a class tasks are dispatched
+ * earliest-deadline-first.
+ */
+public enum TaskPriority {
+    INTERACTIVE,
+    NORMAL,
+    BATCH
+}
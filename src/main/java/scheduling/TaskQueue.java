@@ -0,0 +1,208 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Queue of tasks waiting for a worker, split by {@link TaskPriority}.
+ * Dispatch order is earliest-deadline-first within a class and the highest
+ * non-empty class first, except that a lower class whose oldest-waiting head has
+ * waited longer than the starvation threshold is served first, so low
+ * priorities keep moving under sustained high-priority load.
+ * Not thread safe; guarded by the owning executor.
+ */
+class TaskQueue {
+
+    static final class QueuedTask {
+        final Runnable task;
+        final TaskPriority priority;
+        final long deadline; // System.nanoTime() based, TiredExecutor.NO_DEADLINE if none
+        final long enqueueTime;
+        final long seq; // FIFO tie breaker
+
+        QueuedTask(Runnable task, TaskPriority priority, long deadline, long enqueueTime, long seq) {
+            this.task = task;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.enqueueTime = enqueueTime;
+            this.seq = seq;
+        }
+    }
+
+    private static final Comparator<QueuedTask> EARLIEST_DEADLINE_FIRST = Comparator
+            .comparingLong((QueuedTask t) -> t.deadline)
+            .thenComparingLong(t -> t.seq);
+
+    private final List<PriorityQueue<QueuedTask>> queues; // indexed by TaskPriority.ordinal()
+    private final long[] waitTotal; // total queue wait of dispatched tasks, per class
+    private final long[] waitMax;
+    private final long[] dispatched;
+    private final long[] deadlineMisses; // tasks dispatched after their deadline had passed
+    private final long[] promoted; // tasks dispatched early by starvation protection
+    private long starvationNanos;
+    private long nextSeq = 0;
+    private int size = 0;
+
+    TaskQueue(long starvationNanos) {
+        int classes = TaskPriority.values().length;
+        queues = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            queues.add(new PriorityQueue<>(EARLIEST_DEADLINE_FIRST));
+        }
+        waitTotal = new long[classes];
+        waitMax = new long[classes];
+        dispatched = new long[classes];
+        deadlineMisses = new long[classes];
+        promoted = new long[classes];
+        this.starvationNanos = starvationNanos;
+    }
+
+    void setStarvationNanos(long starvationNanos) {
+        this.starvationNanos = starvationNanos;
+    }
+
+    void add(Runnable task, TaskPriority priority, long deadline) {
+        queues.get(priority.ordinal()).add(new QueuedTask(task, priority, deadline, System.nanoTime(), nextSeq++));
+        size++;
+    }
+
+    /**
+     * Removes the next task to dispatch, or returns null if the queue is empty.
+     */
+    QueuedTask poll() {
+        if (size == 0)
+            return null;
+        long now = System.nanoTime();
+
+        // starvation protection: the longest waiting head of a lower class goes first
+        int chosen = -1;
+        boolean starving = false;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 1; i < queues.size(); i++) {
+            QueuedTask head = queues.get(i).peek();
+            if (head != null && now - head.enqueueTime >= starvationNanos && head.enqueueTime < oldest) {
+                oldest = head.enqueueTime;
+                chosen = i;
+                starving = true;
+            }
+        }
+        if (chosen < 0) {
+            for (int i = 0; i < queues.size(); i++) {
+                if (!queues.get(i).isEmpty()) {
+                    chosen = i;
+                    break;
+                }
+            }
+        }
+
+        QueuedTask next = queues.get(chosen).poll();
+        size--;
+
+        if (starving && hasWorkAbove(chosen))
+            promoted[chosen]++;
+        recordDispatch(next, now);
+        return next;
+    }
+
+    private void recordDispatch(QueuedTask task, long now) {
+        int i = task.priority.ordinal();
+        long wait = now - task.enqueueTime;
+        waitTotal[i] += wait;
+        waitMax[i] = Math.max(waitMax[i], wait);
+        dispatched[i]++;
+        if (task.deadline != TiredExecutor.NO_DEADLINE && now - task.deadline > 0)
+            deadlineMisses[i]++;
+    }
+
+    /**
+     * Returns the least important queued task: the one in the lowest non-empty
+     * class with the latest deadline (the latest submitted among equals), or
+     * null if the queue is empty.
+     */
+    QueuedTask leastImportant() {
+        for (int i = queues.size() - 1; i >= 0; i--) {
+            QueuedTask victim = null;
+            for (QueuedTask t : queues.get(i)) {
+                if (victim == null || EARLIEST_DEADLINE_FIRST.compare(t, victim) > 0)
+                    victim = t;
+            }
+            if (victim != null)
+                return victim;
+        }
+        return null;
+    }
+
+    /**
+     * Removes a queued task without dispatching it.
+     */
+    boolean remove(QueuedTask task) {
+        if (!queues.get(task.priority.ordinal()).remove(task))
+            return false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes, without dispatching, every queued task matching the filter and
+     * returns them.
+     */
+    List<Runnable> removeIf(Predicate<Runnable> filter) {
+        List<Runnable> removed = new ArrayList<>();
+        for (PriorityQueue<QueuedTask> queue : queues) {
+            Iterator<QueuedTask> it = queue.iterator();
+            while (it.hasNext()) {
+                QueuedTask t = it.next();
+                if (filter.test(t.task)) {
+                    it.remove();
+                    removed.add(t.task);
+                    size--;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * True if a task with the given class and deadline would be dispatched
+     * before {@code other}, ignoring starvation protection.
+     */
+    static boolean moreImportant(TaskPriority priority, long deadline, QueuedTask other) {
+        if (priority != other.priority)
+            return priority.ordinal() < other.priority.ordinal();
+        return deadline < other.deadline;
+    }
+
+    private boolean hasWorkAbove(int priorityClass) {
+        for (int i = 0; i < priorityClass; i++) {
+            if (!queues.get(i).isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void appendReport(StringBuilder sb) {
+        for (TaskPriority p : TaskPriority.values()) {
+            int i = p.ordinal();
+            double avg = dispatched[i] == 0 ? 0.0 : waitTotal[i] / (double) dispatched[i];
+            sb.append("Queue Wait [").append(p).append("]")
+                    .append(" | Tasks: ").append(dispatched[i])
+                    .append(" | Avg: ").append(avg / 1_000_000.0).append(" ms")
+                    .append(" | Max: ").append(waitMax[i] / 1_000_000.0).append(" ms")
+                    .append(" | Deadline Misses: ").append(deadlineMisses[i])
+                    .append(" | Promoted: ").append(promoted[i])
+                    .append("\n");
+        }
+    }
+}
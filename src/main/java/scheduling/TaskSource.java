@@ -0,0 +1,26 @@
+package scheduling;
+
+/**
+ * Where a {@link TiredThread} pulls its tasks from when it does not use its own
+ * handoff queue (see {@link DispatchMode#RING}). Each worker has its own
+ * source object, so implementations may keep per-worker state.
+ */
+interface TaskSource {
+
+    /**
+     * Returns the next task without blocking, or null if there is none.
+     */
+    Runnable poll();
+
+    /**
+     * The worker is about to park because there was no task. It polls once
+     * more afterwards, then parks without a timeout, so a producer must add
+     * its task first and unpark a registered worker after that.
+     */
+    void parking(TiredThread worker);
+
+    /**
+     * The worker woke up and is no longer parked.
+     */
+    void unparked(TiredThread worker);
+}
@@ -0,0 +1,42 @@
+package scheduling;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks an idle worker at random with probability proportional to its
+ * measured throughput (see {@link TiredThread#getThroughput()}), so faster
+ * workers get more tasks without starving the slower ones. Workers that were
+ * not measured yet count as average.
+ */
+public class ThroughputWeightedPolicy implements SchedulingPolicy {
+
+    static final String NAME = "throughput-weighted";
+
+    @Override
+    public TiredThread select(List<TiredThread> idle, Object affinity) {
+        double measuredSum = 0.0;
+        int measured = 0;
+        for (TiredThread w : idle) {
+            if (w.getThroughput() > 0) {
+                measuredSum += w.getThroughput();
+                measured++;
+            }
+        }
+        double average = measured == 0 ? 1.0 : measuredSum / measured;
+        double total = measuredSum + (idle.size() - measured) * average;
+
+        double target = ThreadLocalRandom.current().nextDouble() * total;
+        for (TiredThread w : idle) {
+            target -= w.getThroughput() > 0 ? w.getThroughput() : average;
+            if (target < 0)
+                return w;
+        }
+        return idle.get(idle.size() - 1); // rounding left a sliver
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -1,133 +1,1166 @@
 package scheduling;
 
-import java.util.concurrent.PriorityBlockingQueue;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
 
-public class TiredExecutor {
+import javax.management.JMException;
+import javax.management.ObjectName;
 
-    private final TiredThread[] workers;
-    private final PriorityBlockingQueue<TiredThread> idleMinHeap = new PriorityBlockingQueue<>();
+public final class TiredExecutor implements TiredExecutorMXBean {
+
+    /** Deadline value for tasks that have none. */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final long DEFAULT_STARVATION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** Ring size used by {@link DispatchMode#RING} when none is given. */
+    public static final int DEFAULT_RING_CAPACITY = 4096;
+    private static final int RING_CLAIM_BATCH = 8; // most tasks a worker claims from the ring at once
+
+    // every worker ever started, including retired ones, so the report covers the whole lifetime
+    private final List<TiredThread> workers = new ArrayList<>();
+    // guarded by this; idle workers, the scheduling policy picks which one runs the next task
+    private final List<TiredThread> idleWorkers = new ArrayList<>();
+    private SchedulingPolicy schedulingPolicy = new LeastFatiguePolicy(); // guarded by this
+    // guarded by this; fairness and makespan per policy that was ever active, by report name
+    private final Map<String, PolicyStats> policyStats = new LinkedHashMap<>();
+    // guarded by this; tasks waiting for an idle worker, by priority class and deadline
+    private final TaskQueue pending = new TaskQueue(DEFAULT_STARVATION_NANOS);
     private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private final AtomicLong helpedCount = new AtomicLong(0); // tasks run inline by workers waiting on a nested batch
+    private final AtomicInteger activeRanges = new AtomicInteger(0); // THROUGHPUT submitRanges calls in progress
+
+    private final int minThreads; // workers that never retire
+    private final int maxThreads; // upper bound on live workers
+    private final long keepAliveNanos; // idle time after which an extra worker retires (0 = never)
+    private final int scaleUpQueueDepth; // queued tasks needed before an extra worker is started
+    private volatile HandoffMode handoffMode;
+    private final DispatchMode dispatchMode;
+    private final MpmcRingBuffer<RingTask> ring; // RING mode only, null otherwise
+    private final ConcurrentLinkedQueue<TiredThread> parkedWorkers = new ConcurrentLinkedQueue<>(); // RING mode
+    private final AtomicInteger ringSubmitters = new AtomicInteger(0); // RING mode submits in progress
+    private int liveWorkers = 0; // guarded by this; started and not yet retired
+    private volatile boolean started; // false until a fixed-size pool started its workers
+    private int nextWorkerId = 0; // guarded by this
+
+    private final LatencyHistogram queueWait = new LatencyHistogram(); // submit -> handed to a worker
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram(); // handed to a worker -> started
+    private final LatencyHistogram runTime = new LatencyHistogram(); // started -> finished
+    // makespan of submitRanges batches and total work they carried, per chunk policy
+    private final LatencyHistogram[] makespans = newHistograms(ChunkPolicy.values().length);
+    private final double[] chunkedCost = new double[ChunkPolicy.values().length]; // guarded by this
+    private ObjectName mbeanName = null; // guarded by this; set while registered as a platform MBean
+
+    // admission control, all guarded by this
+    private int queueCapacity = Integer.MAX_VALUE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private long blockTimeoutNanos = 0; // 0 = block without a time limit
+    private int blockedSubmitters = 0;
+    private int peakQueueDepth = 0;
+    private long blockedCount = 0;
+    private long rejectedCount = 0;
+    private long shedCount = 0;
+    private long callerRunsCount = 0;
 
     public TiredExecutor(int numThreads) {
+        this(numThreads, HandoffMode.BLOCKING);
+    }
+
+    /**
+     * Creates a fixed-size executor; all workers start together on the first
+     * submit and live until shutdown.
+     */
+    public TiredExecutor(int numThreads, HandoffMode handoffMode) {
+        this(numThreads, handoffMode, DispatchMode.HANDOFF, DEFAULT_RING_CAPACITY);
+    }
+
+    public TiredExecutor(int numThreads, HandoffMode handoffMode, DispatchMode dispatchMode) {
+        this(numThreads, handoffMode, dispatchMode, DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * Creates a fixed-size executor; all workers start together on the first
+     * submit and live until shutdown. With {@link DispatchMode#RING}, tasks go through a
+     * preallocated lock-free ring of {@code ringCapacity} slots (a power of two),
+     * which also bounds the number of queued tasks.
+     */
+    public TiredExecutor(int numThreads, HandoffMode handoffMode, DispatchMode dispatchMode, int ringCapacity) {
 
         if (numThreads <= 0)
             throw new IllegalArgumentException("cannot initialize TiredExecutor - num of threads <=0 ");
+        if (handoffMode == null)
+            throw new IllegalArgumentException("handoff mode cannot be null");
+        if (dispatchMode == null)
+            throw new IllegalArgumentException("dispatch mode cannot be null");
 
-        workers = new TiredThread[numThreads];
-        for (int i = 0; i < numThreads; i++) {
-            workers[i] = new TiredThread(i, 0.5 + Math.random());
-            // Start the worker thread; it enters run() and blocks on handoff.take(),
-            // until the first task is assigned
-            workers[i].start();
-            idleMinHeap.add(workers[i]);
-        }
+        this.minThreads = numThreads;
+        this.maxThreads = numThreads;
+        this.keepAliveNanos = 0;
+        this.scaleUpQueueDepth = 1;
+        this.handoffMode = handoffMode;
+        this.dispatchMode = dispatchMode;
+        this.ring = dispatchMode == DispatchMode.RING ? new MpmcRingBuffer<>(ringCapacity) : null;
+        this.started = false;
+    }
+
+    public TiredExecutor(int minThreads, int maxThreads, long keepAliveMillis) {
+        this(minThreads, maxThreads, keepAliveMillis, 1, HandoffMode.BLOCKING);
+    }
+
+    /**
+     * Creates an elastic executor. No worker is started up front: workers join
+     * on demand, up to {@code minThreads} as soon as there is work, and beyond
+     * that (up to {@code maxThreads}) only once {@code scaleUpQueueDepth} tasks
+     * are queued. Workers above {@code minThreads} retire after being idle for
+     * {@code keepAliveMillis}.
+     */
+    public TiredExecutor(int minThreads, int maxThreads, long keepAliveMillis, int scaleUpQueueDepth,
+            HandoffMode handoffMode) {
+
+        if (minThreads < 0 || maxThreads <= 0 || minThreads > maxThreads)
+            throw new IllegalArgumentException("cannot initialize TiredExecutor - invalid pool bounds");
+        if (keepAliveMillis <= 0)
+            throw new IllegalArgumentException("cannot initialize TiredExecutor - keep alive time <=0 ");
+        if (scaleUpQueueDepth <= 0)
+            throw new IllegalArgumentException("cannot initialize TiredExecutor - scale up queue depth <=0 ");
+        if (handoffMode == null)
+            throw new IllegalArgumentException("handoff mode cannot be null");
+
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMillis);
+        this.scaleUpQueueDepth = scaleUpQueueDepth;
+        this.handoffMode = handoffMode;
+        this.dispatchMode = DispatchMode.HANDOFF;
+        this.ring = null;
+        this.started = true; // workers join on demand, see dispatchPending()
+    }
 
+    /**
+     * Starts all workers of a fixed-size pool, once. Called on first use
+     * rather than from the constructor, so that no worker thread can see the
+     * executor before it is fully constructed.
+     */
+    private void startWorkers() {
+        if (started)
+            return;
+        synchronized (this) {
+            if (started || shutdown.get())
+                return;
+            for (int i = 0; i < minThreads; i++) {
+                // Start the worker thread; it enters run() and waits on its handoff queue
+                // (or the ring), until the first task is assigned
+                TiredThread worker = startWorker();
+                if (ring == null)
+                    idleWorkers.add(worker);
+            }
+            started = true;
+        }
     }
 
+    /**
+     * Queues the task with {@link TaskPriority#NORMAL} priority and no deadline;
+     * it runs on the least fatigued idle worker as soon as one is available.
+     * Returns right away unless the queue is full, see
+     * {@link #submit(Runnable, TaskPriority, long)}.
+     */
     public void submit(Runnable task) {
+        submit(task, TaskPriority.NORMAL, NO_DEADLINE);
+    }
+
+    public void submit(Runnable task, TaskPriority priority) {
+        submit(task, priority, NO_DEADLINE);
+    }
+
+    /**
+     * Queues the task in its priority class. Within a class, tasks with an
+     * earlier {@code deadline} (a {@link System#nanoTime()} timestamp, or
+     * {@link #NO_DEADLINE}) are dispatched first.
+     * If the queue is full, the configured {@link OverflowPolicy} decides
+     * whether the caller blocks, the task is rejected, run by the caller, or
+     * a less important task is shed.
+     * Only BLOCK blocks the caller: it waits for room, up to the block timeout
+     * if one is set. If the waiting caller is interrupted, its interrupt flag
+     * is restored and a RejectedExecutionException is thrown; if the executor
+     * shuts down meanwhile, an IllegalStateException is. In RING mode BLOCK
+     * spins with {@link Thread#yield()} instead of waiting, and does not react
+     * to interrupts. A task submitted by one of this executor's own workers
+     * never blocks: under BLOCK it runs on the worker, as with CALLER_RUNS,
+     * since a worker waiting for its own pool could deadlock it.
+     *
+     * @throws RejectedExecutionException if the task was not admitted
+     */
+    public void submit(Runnable task, TaskPriority priority, long deadline) {
 
         if (task == null) {
             throw new IllegalArgumentException("task cannot be null");
         }
+        if (priority == null) {
+            throw new IllegalArgumentException("priority cannot be null");
+        }
+        startWorkers();
+        if (ring != null) {
+            submitToRing(task);
+            return;
+        }
 
-        boolean anyAlive = false;
-        for (TiredThread w : workers) {
-            if (w.isAlive()) {
-                anyAlive = true;
-                break;
+        synchronized (this) {
+            if (shutdown.get()) {
+                throw new IllegalStateException("Executor has been shut down");
+            }
+            // a worker blocking on its own executor's full queue could deadlock the
+            // pool, so nested submits run on the worker instead
+            boolean nestedBlock = overflowPolicy == OverflowPolicy.BLOCK && isOwnWorker(Thread.currentThread());
+            if (pending.size() < queueCapacity || (!nestedBlock && makeRoom(priority, deadline))) {
+                pending.add(task, priority, deadline);
+                peakQueueDepth = Math.max(peakQueueDepth, pending.size());
+                dispatchPending();
+                return;
             }
+            callerRunsCount++;
         }
+        // CALLER_RUNS: the task runs on the submitting thread, outside the executor's lock
+        task.run();
+    }
 
-        if (!anyAlive) {
+    /**
+     * Applies the overflow policy to a full queue. Returns true once there is
+     * room for the new task, false if the caller should run it itself.
+     * Must be called while holding the executor's lock.
+     */
+    private boolean makeRoom(TaskPriority priority, long deadline) {
+        switch (overflowPolicy) {
+            case REJECT:
+                rejectedCount++;
+                throw new RejectedExecutionException("Task queue is full (capacity " + queueCapacity + ")");
+            case CALLER_RUNS:
+                return false;
+            case SHED_LOWEST:
+                TaskQueue.QueuedTask victim = pending.leastImportant();
+                shedCount++;
+                if (victim == null || !TaskQueue.moreImportant(priority, deadline, victim)) {
+                    throw new RejectedExecutionException("Task shed: the queue is full of more important tasks");
+                }
+                pending.remove(victim);
+                drop(victim.task, new RejectedExecutionException("Task shed to make room for a more important one"));
+                return true;
+            default: // BLOCK
+                blockedCount++;
+                long waitUntil = System.nanoTime() + blockTimeoutNanos;
+                blockedSubmitters++;
+                try {
+                    while (pending.size() >= queueCapacity) {
+                        long remaining = waitUntil - System.nanoTime();
+                        if (blockTimeoutNanos > 0 && remaining <= 0) {
+                            rejectedCount++;
+                            throw new RejectedExecutionException("Task queue is full (capacity " + queueCapacity
+                                    + "), timed out waiting for room");
+                        }
+                        try {
+                            if (blockTimeoutNanos > 0)
+                                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                            else
+                                this.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            rejectedCount++;
+                            throw new RejectedExecutionException("Interrupted while waiting for room in the task queue");
+                        }
+                        if (shutdown.get()) {
+                            throw new IllegalStateException("Executor has been shut down");
+                        }
+                    }
+                } finally {
+                    blockedSubmitters--;
+                }
+                return true;
+        }
+    }
+
+    /**
+     * RING mode submit: one CAS in the common case, no lock. Priorities and
+     * deadlines do not apply; a full ring is handled by the overflow policy,
+     * where BLOCK spins (yielding) until a worker frees a slot.
+     */
+    private void submitToRing(Runnable task) {
+        // registered before the shutdown check, so shutdown() waits for the offer
+        // and the workers drain the task before they exit
+        ringSubmitters.incrementAndGet();
+        try {
+            offerToRing(task);
+        } finally {
+            ringSubmitters.decrementAndGet();
+        }
+    }
+
+    private void offerToRing(Runnable task) {
+        if (shutdown.get()) {
             throw new IllegalStateException("Executor has been shut down");
         }
+        RingTask queued = new RingTask(task, System.nanoTime());
+        long waitUntil = 0;
+        while (!ring.offer(queued)) {
+            OverflowPolicy policy;
+            long timeoutNanos;
+            synchronized (this) {
+                policy = overflowPolicy;
+                timeoutNanos = blockTimeoutNanos;
+            }
+            if (policy == OverflowPolicy.CALLER_RUNS
+                    || (policy == OverflowPolicy.BLOCK && isOwnWorker(Thread.currentThread()))) {
+                synchronized (this) {
+                    callerRunsCount++;
+                }
+                task.run();
+                return;
+            }
+            if (policy != OverflowPolicy.BLOCK) {
+                // SHED_LOWEST cannot pick a victim out of a FIFO ring, so it rejects
+                synchronized (this) {
+                    rejectedCount++;
+                }
+                throw new RejectedExecutionException("Task ring is full (capacity " + ring.capacity() + ")");
+            }
+            long now = System.nanoTime();
+            if (waitUntil == 0) {
+                waitUntil = now + timeoutNanos;
+                synchronized (this) {
+                    blockedCount++;
+                }
+            } else if (timeoutNanos > 0 && waitUntil - now <= 0) {
+                synchronized (this) {
+                    rejectedCount++;
+                }
+                throw new RejectedExecutionException("Task ring is full (capacity " + ring.capacity()
+                        + "), timed out waiting for room");
+            }
+            if (shutdown.get()) {
+                throw new IllegalStateException("Executor has been shut down");
+            }
+            Thread.yield();
+        }
+        // the task is published, so a worker registering from now on finds it
+        // on its last poll, and one registered earlier gets this unpark
+        TiredThread parked = parkedWorkers.poll();
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    /**
+     * Drops a queued task without running it, letting its batch (if any) know why.
+     */
+    private void drop(Runnable task, RuntimeException reason) {
+        if (task instanceof TaskBatch.BatchTask) {
+            ((TaskBatch.BatchTask) task).reject(reason);
+        }
+    }
 
-        TiredThread curr = null;
+    public void submitAll(Iterable<Runnable> tasks) {
+        submitAll(tasks, TaskPriority.NORMAL, NO_DEADLINE, 0);
+    }
 
+    public void submitAll(Iterable<Runnable> tasks, TaskPriority priority, long deadline) {
+        submitAll(tasks, priority, deadline, 0);
+    }
+
+    /**
+     * Submits the tasks as one batch and waits until all of them finish.
+     * Completion is tracked per call, so concurrent callers sharing this
+     * executor only wait for their own tasks.
+     * The batch fails fast: the first task that throws cancels it, queued tasks
+     * of the batch are dropped, and the exception is rethrown here without
+     * waiting for tasks that are still running. If {@code timeoutMillis} is
+     * positive and the batch is not done by then, it is cancelled the same way
+     * and a CancellationException is thrown.
+     * When called from one of this executor's own workers (a task that forks
+     * subtasks), the worker does not block: it runs queued tasks of the batch
+     * itself while waiting, so nested submission cannot starve the pool.
+     */
+    public void submitAll(Iterable<Runnable> tasks, TaskPriority priority, long deadline, long timeoutMillis) {
+        if (tasks == null)
+            throw new IllegalArgumentException("tasks cannot be null");
+        if (timeoutMillis < 0)
+            throw new IllegalArgumentException("timeout cannot be negative");
+
+        TaskBatch batch = new TaskBatch();
+        // nested batches are part of their parent's makespan
+        PolicyStats stats = isOwnWorker(Thread.currentThread()) ? null : currentPolicyStats();
+        long start = System.nanoTime();
         try {
-            curr = idleMinHeap.take();
+            for (Runnable task : tasks) {
+                if (task == null)
+                    throw new IllegalArgumentException("task cannot be null");
+                if (batch.isCancelled())
+                    break; // an earlier task already failed, await() reports it
+                batch.register();
+                TaskBatch.BatchTask wrapped = batch.wrap(task);
+                try {
+                    submit(wrapped, priority, deadline);
+                } catch (RuntimeException e) {
+                    wrapped.skip();
+                    throw e;
+                }
+            }
+            if (isOwnWorker(Thread.currentThread()))
+                helpUntilDone(batch, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            else
+                batch.await(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            if (stats != null)
+                stats.makespan.record(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            System.out.println("[TiredExecutor] SubmitAll interrupted: " + e.getMessage());
+            Thread.currentThread().interrupt();
+            batch.cancel();
+            purge(batch);
+        } catch (RuntimeException | Error e) {
+            batch.cancel();
+            purge(batch);
+            throw e;
         }
-        // Interrupted while blocked on take(), stop waiting and exit
-        catch (InterruptedException e) {
-            System.out.println("[TiredExecutor] Submit interrupted: " + e.getMessage());
+    }
+
+    /**
+     * Fork/join helper: runs {@code body} for every index in [from, to),
+     * splitting the range in halves until a part has at most {@code grain}
+     * indexes. Each split is a nested submitAll, so on a worker the halves are
+     * run with help-while-waiting instead of blocking.
+     */
+    public void parallelFor(int from, int to, int grain, IntConsumer body) {
+        if (body == null)
+            throw new IllegalArgumentException("body cannot be null");
+        if (grain <= 0)
+            throw new IllegalArgumentException("grain must be positive");
+        if (to - from <= grain) {
+            for (int i = from; i < to && !cancellationRequested(); i++) {
+                body.accept(i);
+            }
             return;
         }
+        int mid = from + (to - from) / 2;
+        submitAll(List.of(() -> parallelFor(from, mid, grain, body), () -> parallelFor(mid, to, grain, body)));
+    }
+
+    public void submitRanges(int units, double costPerUnit, RangeTask body, ChunkPolicy policy) {
+        submitRanges(units, costPerUnit, body, policy, TaskPriority.NORMAL, NO_DEADLINE, 0);
+    }
+
+    /**
+     * Runs {@code body} over the indexes [0, units) as one batch (see
+     * {@link #submitAll}) and waits for it, splitting the range according to
+     * {@code policy}. {@code costPerUnit} is the work of one index (e.g. flops
+     * per row); it makes the measured worker throughput comparable across
+     * batches of different kinds of work.
+     */
+    public void submitRanges(int units, double costPerUnit, RangeTask body, ChunkPolicy policy,
+            TaskPriority priority, long deadline, long timeoutMillis) {
+        if (body == null)
+            throw new IllegalArgumentException("body cannot be null");
+        if (policy == null)
+            throw new IllegalArgumentException("chunk policy cannot be null");
+        if (units < 0)
+            throw new IllegalArgumentException("units cannot be negative");
+        if (costPerUnit <= 0)
+            throw new IllegalArgumentException("cost per unit must be positive");
+
+        startWorkers(); // the share below counts them
+        List<Runnable> tasks = new ArrayList<>();
+        boolean chunked = policy == ChunkPolicy.THROUGHPUT;
+        if (!chunked) {
+            for (int i = 0; i < units; i++) {
+                final int index = i;
+                tasks.add(() -> runMeasured(body, index, index + 1, costPerUnit));
+            }
+        } else {
+            AtomicInteger cursor = new AtomicInteger(0);
+            // concurrent ranged batches (e.g. independent nodes of one job) split the pool between them
+            int share = Math.max(1, getPoolSize() / activeRanges.incrementAndGet());
+            int claimers = Math.min(units, share);
+            for (int i = 0; i < claimers; i++) {
+                tasks.add(() -> claimChunks(cursor, units, costPerUnit, body));
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            submitAll(tasks, priority, deadline, timeoutMillis);
+        } finally {
+            if (chunked)
+                activeRanges.decrementAndGet();
+        }
+        long makespan = System.nanoTime() - start;
+        makespans[policy.ordinal()].record(makespan);
+        synchronized (this) {
+            chunkedCost[policy.ordinal()] += units * costPerUnit;
+        }
+    }
+
+    /**
+     * Body of a THROUGHPUT claimer task: repeatedly claims the next chunk,
+     * sized by this worker's share of the pool's measured throughput, until
+     * the range is exhausted.
+     */
+    private void claimChunks(AtomicInteger cursor, int units, double costPerUnit, RangeTask body) {
+        while (!cancellationRequested()) {
+            int size = chunkSizeFor(Thread.currentThread(), units);
+            int from = cursor.getAndAdd(size);
+            if (from >= units)
+                return;
+            runMeasured(body, from, Math.min(units, from + size), costPerUnit);
+        }
+    }
+
+    /**
+     * A worker's chunk is its share of the pool's total throughput times the
+     * whole range. Workers without a measurement yet count as average ones;
+     * the chunk is capped so that no worker grabs more than its share at once.
+     */
+    private int chunkSizeFor(Thread thread, int units) {
+        double own = 0.0;
+        double total = 0.0;
+        int measured = 0;
+        int live;
+        synchronized (this) {
+            live = Math.max(1, liveWorkers);
+            for (TiredThread w : workers) {
+                if (!w.isRetired() && w.getThroughput() > 0) {
+                    total += w.getThroughput();
+                    measured++;
+                }
+            }
+        }
+        double average = measured == 0 ? 1.0 : total / measured;
+        total += (live - measured) * average;
+        if (thread instanceof TiredThread && ((TiredThread) thread).getOwner() == this)
+            own = ((TiredThread) thread).getThroughput();
+        if (own <= 0)
+            own = average;
+        return Math.max(1, (int) Math.round(units * own / total));
+    }
 
-        TiredThread copy = curr;
-        inFlight.addAndGet(1);
-        // wrap the task so we can maintain the inFlight and idleMinHeap fields
+    private void runMeasured(RangeTask body, int from, int to, double costPerUnit) {
+        long startTime = System.nanoTime();
+        body.run(from, to);
+        Thread thread = Thread.currentThread();
+        if (thread instanceof TiredThread)
+            ((TiredThread) thread).recordThroughput((to - from) * costPerUnit, System.nanoTime() - startTime);
+    }
+
+    private static LatencyHistogram[] newHistograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private boolean isOwnWorker(Thread thread) {
+        return thread instanceof TiredThread && ((TiredThread) thread).getOwner() == this;
+    }
+
+    /**
+     * Help-while-waiting: the calling worker takes queued tasks of its own batch
+     * and runs them inline until none is left, then waits for the ones that
+     * other workers are already running. The inline work happens inside the
+     * worker's current task, so it is charged to the worker's fatigue.
+     * Tasks are claimed from the batch itself (see {@link TaskBatch#pollUnclaimed}),
+     * in O(1) and without the executor's lock; their copies in the queue or
+     * the ring are left there and do nothing once dispatched. Other callers'
+     * tasks are never run here, so their failures stay with their batches.
+     */
+    private void helpUntilDone(TaskBatch batch, long timeoutNanos) throws InterruptedException {
+        long waitUntil = System.nanoTime() + timeoutNanos;
+        while (!batch.isDone()) {
+            if (timeoutNanos > 0 && waitUntil - System.nanoTime() <= 0)
+                break;
+            TaskBatch.BatchTask next = batch.pollUnclaimed();
+            if (next == null)
+                break; // the rest is already running on other workers
+            long startTime = System.nanoTime();
+            try {
+                next.runClaimed();
+            } finally {
+                runTime.record(System.nanoTime() - startTime);
+                helpedCount.incrementAndGet();
+            }
+        }
+        long remaining = timeoutNanos > 0 ? Math.max(1, waitUntil - System.nanoTime()) : 0;
+        batch.await(remaining);
+    }
+
+    /**
+     * True if the task running on the calling thread belongs to a batch that
+     * was cancelled (a sibling task failed or the batch timed out). Long
+     * running tasks may poll this and return early.
+     */
+    public static boolean cancellationRequested() {
+        return TaskBatch.currentCancelled();
+    }
+
+    /**
+     * Drops every queued task of a cancelled batch.
+     */
+    private synchronized void purge(TaskBatch batch) {
+        for (Runnable task : pending.removeIf(t -> t instanceof TaskBatch.BatchTask
+                && ((TaskBatch.BatchTask) t).batch() == batch)) {
+            ((TaskBatch.BatchTask) task).skip();
+        }
+        if (blockedSubmitters > 0) {
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Pairs queued tasks with idle workers, starting new workers when the pool
+     * may still grow. Must be called while holding the executor's lock.
+     */
+    private void dispatchPending() {
+        while (!pending.isEmpty()) {
+            if (idleWorkers.isEmpty()) {
+                if (!shouldStartWorker())
+                    return;
+                idleWorkers.add(startWorker());
+            }
+            TaskQueue.QueuedTask next = pending.poll();
+            TiredThread worker = schedulingPolicy.select(idleWorkers, affinityOf(next.task));
+            if (!idleWorkers.remove(worker)) {
+                pending.add(next.task, next.priority, next.deadline);
+                throw new IllegalStateException("Scheduling policy " + schedulingPolicy.getName()
+                        + " picked a worker that is not idle");
+            }
+            assign(worker, next);
+            if (blockedSubmitters > 0) {
+                // room was made in the queue, wake up submitters blocked in makeRoom
+                this.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Tasks of the same batch share an affinity key, which locality-aware
+     * policies use to keep them on the same worker.
+     */
+    private static Object affinityOf(Runnable task) {
+        return task instanceof TaskBatch.BatchTask ? ((TaskBatch.BatchTask) task).batch() : null;
+    }
+
+    private boolean shouldStartWorker() {
+        if (liveWorkers >= maxThreads)
+            return false;
+        // core workers start on first demand; extra ones only once work builds up
+        return liveWorkers < minThreads || pending.size() >= scaleUpQueueDepth;
+    }
+
+    private TiredThread startWorker() {
+        TiredThread worker = new TiredThread(nextWorkerId++, 0.5 + Math.random(), handoffMode);
+        if (keepAliveNanos > 0) {
+            worker.setIdleTimeout(keepAliveNanos, this::tryRetire);
+        }
+        if (ring != null) {
+            worker.setTaskSource(new RingSource());
+        }
+        workers.add(worker);
+        liveWorkers++;
+        worker.setOwner(this);
+        worker.start();
+        return worker;
+    }
+
+    private void assign(TiredThread worker, TaskQueue.QueuedTask queued) {
+        Runnable task = queued.task;
+        long handoffTime = System.nanoTime();
+        queueWait.record(handoffTime - queued.enqueueTime);
+        inFlight.incrementAndGet();
+        PolicyStats stats = currentPolicyStats();
+        // wrap the task so we can maintain the inFlight and idleWorkers fields
         Runnable wrappedTask = () -> {
+            long startTime = System.nanoTime();
+            dispatchLatency.record(startTime - handoffTime);
+            long runNanos = 0;
             try {
                 task.run();
             } finally {
+                runNanos = System.nanoTime() - startTime;
+                runTime.record(runNanos);
+                inFlight.decrementAndGet();
                 // task finished, worker became idle again
-                idleMinHeap.add(copy);
-
-                // notify all threads that are waiting if all tasks completed
-                if (inFlight.decrementAndGet() == 0) {
-                    synchronized (this) {
-                        this.notifyAll();
-                    }
-                }
+                workerIdle(worker, stats, runNanos);
             }
         };
+        worker.newTask(wrappedTask);
+    }
 
-        try {
-            curr.newTask(wrappedTask);
-        }
-        // if the worker was unavailable; return it to the pool and retry
-        catch (IllegalStateException e) {
+    /**
+     * What happened while a scheduling policy was active: the fatigue each
+     * worker accumulated from the tasks the policy gave it, and the makespan
+     * of top-level batches. Guarded by the executor's lock, except the
+     * histogram which is thread-safe on its own.
+     */
+    private static final class PolicyStats {
+        final LatencyHistogram makespan = new LatencyHistogram();
+        long tasks = 0;
+        double[] fatigue = new double[0]; // by worker id
 
-            if (curr != null && curr.isAlive())
-                idleMinHeap.add(curr);
+        void charge(TiredThread worker, long runNanos) {
+            tasks++;
+            int id = worker.getWorkerId();
+            if (id >= fatigue.length)
+                fatigue = Arrays.copyOf(fatigue, id + 1);
+            fatigue[id] += worker.getFatigueFactor() * runNanos;
+        }
 
-            if (inFlight.decrementAndGet() == 0) {
-                synchronized (this) {
-                    this.notifyAll();
+        /**
+         * Sum of squared deviations of the fatigue this policy caused, over
+         * the workers that are still live.
+         */
+        double fairness(List<TiredThread> workers) {
+            double sum = 0.0;
+            int live = 0;
+            for (TiredThread w : workers) {
+                if (!w.isRetired()) {
+                    sum += fatigueOf(w);
+                    live++;
                 }
             }
+            if (live == 0)
+                return 0.0;
+            double avg = sum / live;
+            double fairness = 0.0;
+            for (TiredThread w : workers) {
+                if (!w.isRetired()) {
+                    double diff = fatigueOf(w) - avg;
+                    fairness += diff * diff;
+                }
+            }
+            return fairness;
+        }
 
-            throw e;
+        private double fatigueOf(TiredThread worker) {
+            int id = worker.getWorkerId();
+            return id < fatigue.length ? fatigue[id] : 0.0;
+        }
+    }
+
+    /**
+     * A task waiting in the ring, with the time it was submitted.
+     */
+    private static final class RingTask {
+        final Runnable task;
+        final long enqueueTime;
 
+        RingTask(Runnable task, long enqueueTime) {
+            this.task = task;
+            this.enqueueTime = enqueueTime;
         }
-        return; // SUCCESS - exit submit
     }
 
-    public void submitAll(Iterable<Runnable> tasks) {
-        // submit tasks one by one and wait until all finish
-        if (tasks == null)
-            throw new IllegalArgumentException("tasks cannot be null");
+    /**
+     * Per-worker view of the ring. Claims a few tasks at once (batched claim,
+     * one CAS) but never more than the worker's fair share of what is queued,
+     * and hands them out one at a time, wrapped for the executor's metrics.
+     * Only the owning worker calls poll(), so the claimed array needs no lock.
+     */
+    private final class RingSource implements TaskSource {
+        private final RingTask[] claimed = new RingTask[RING_CLAIM_BATCH];
+        private int next = 0;
+        private int count = 0;
+        private long claimTime = 0;
 
-        for (Runnable task : tasks) {
-            submit(task);
+        @Override
+        public Runnable poll() {
+            if (next == count) {
+                int share = Math.max(1, Math.min(RING_CLAIM_BATCH, ring.size() / maxThreads));
+                count = ring.drainTo(claimed, share);
+                next = 0;
+                if (count == 0)
+                    return null;
+                claimTime = System.nanoTime();
+            }
+            RingTask queued = claimed[next];
+            claimed[next++] = null;
+            return wrapClaimed(queued, claimTime);
         }
 
-        synchronized (this) {
-            while (inFlight.get() > 0) {
-                try {
-                    // waiting until inFlight= 0 (notified by submit)
-                    this.wait();
-                } catch (InterruptedException e) {
-                    System.out.println("[TiredExecutor] SubmitAll interrupted: " + e.getMessage());
-                    return; 
-                }
+        @Override
+        public void parking(TiredThread worker) {
+            parkedWorkers.add(worker);
+        }
+
+        @Override
+        public void unparked(TiredThread worker) {
+            parkedWorkers.remove(worker);
+        }
+    }
+
+    private Runnable wrapClaimed(RingTask queued, long claimTime) {
+        queueWait.record(claimTime - queued.enqueueTime);
+        inFlight.incrementAndGet();
+        return () -> {
+            long startTime = System.nanoTime();
+            dispatchLatency.record(startTime - claimTime);
+            try {
+                queued.task.run();
+            } finally {
+                runTime.record(System.nanoTime() - startTime);
+                inFlight.decrementAndGet();
             }
+        };
+    }
+
+    private synchronized void workerIdle(TiredThread worker, PolicyStats stats, long runNanos) {
+        stats.charge(worker, runNanos);
+        if (shutdown.get() && pending.isEmpty()) {
+            // the queue is drained, nothing left for this worker to do
+            liveWorkers--;
+            worker.shutdown();
+            return;
         }
+        idleWorkers.add(worker);
+        dispatchPending();
     }
 
-    public void shutdown() throws InterruptedException {
+    /**
+     * Called by a worker whose idle timeout expired. The worker may retire only
+     * if the pool stays at or above its minimum and the worker is still idle,
+     * i.e. no task was handed to it in the meantime.
+     */
+    private synchronized boolean tryRetire(TiredThread worker) {
+        if (shutdown.get() || liveWorkers <= minThreads)
+            return false;
+        if (!idleWorkers.remove(worker))
+            return false;
+        liveWorkers--;
+        return true;
+    }
+
+    /**
+     * Number of tasks currently handed to workers and not yet finished,
+     * across all callers of this executor.
+     */
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of tasks waiting for an idle worker.
+     */
+    @Override
+    public synchronized int getQueueDepth() {
+        return ring != null ? ring.size() : pending.size();
+    }
+
+    public synchronized int getQueueCapacity() {
+        return ring != null ? ring.capacity() : queueCapacity;
+    }
+
+    /**
+     * Largest number of tasks that were waiting in the queue at the same time.
+     */
+    @Override
+    public synchronized int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    /**
+     * Number of submits that had to wait for room in the queue.
+     */
+    public synchronized long getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Number of tasks refused because the queue was full (REJECT, or BLOCK timeouts).
+     */
+    @Override
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Number of tasks dropped by SHED_LOWEST, either queued ones or the new one.
+     */
+    @Override
+    public synchronized long getShedCount() {
+        return shedCount;
+    }
+
+    public synchronized long getCallerRunsCount() {
+        return callerRunsCount;
+    }
 
-        for (int i = 0; i < workers.length; i++) {
-            workers[i].shutdown();
+    /**
+     * Bounds the pending queue. When it holds {@code capacity} tasks, further
+     * submits are handled by {@code policy}; with BLOCK the caller waits at
+     * most {@code blockTimeoutMillis} (0 = no limit) before being rejected.
+     * Calling submit from a worker with BLOCK can deadlock if every worker does it.
+     */
+    public synchronized void setAdmissionControl(int capacity, OverflowPolicy policy, long blockTimeoutMillis) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("queue capacity must be positive");
+        if (policy == null)
+            throw new IllegalArgumentException("overflow policy cannot be null");
+        if (blockTimeoutMillis < 0)
+            throw new IllegalArgumentException("block timeout cannot be negative");
+        this.queueCapacity = capacity;
+        this.overflowPolicy = policy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        // a larger capacity may unblock waiting submitters
+        this.notifyAll();
+    }
+
+    /**
+     * Number of workers currently started and not retired.
+     */
+    @Override
+    public synchronized int getPoolSize() {
+        return liveWorkers;
+    }
+
+    /**
+     * Most workers the pool runs at once: its size for a fixed-size pool,
+     * started or not, and the upper bound for an elastic one.
+     */
+    public int getMaxPoolSize() {
+        return maxThreads;
+    }
+
+    @Override
+    public synchronized int getBusyWorkers() {
+        int busy = 0;
+        for (TiredThread w : workers) {
+            if (w.isBusy())
+                busy++;
+        }
+        return busy;
+    }
+
+    @Override
+    public synchronized long getTasksCompleted() {
+        long completed = 0;
+        for (TiredThread w : workers) {
+            completed += w.getTasksCompleted();
+        }
+        return completed;
+    }
+
+    @Override
+    public synchronized double getUtilization() {
+        if (liveWorkers == 0)
+            return 0.0;
+        return getBusyWorkers() / (double) liveWorkers;
+    }
+
+    @Override
+    public synchronized double getCumulativeUtilization() {
+        long used = 0;
+        long total = 0;
+        for (TiredThread w : workers) {
+            used += w.getTimeUsed();
+            total += w.getTimeUsed() + w.getTimeIdle();
+        }
+        return total == 0 ? 0.0 : used / (double) total;
+    }
+
+    @Override
+    public synchronized double[] getWorkerTasksPerSecond() {
+        double[] rates = new double[workers.size()];
+        for (TiredThread w : workers) {
+            rates[w.getWorkerId()] = w.getTasksPerSecond();
+        }
+        return rates;
+    }
+
+    @Override
+    public double getQueueWaitMeanMicros() {
+        return queueWait.getMean() / 1_000.0;
+    }
+
+    @Override
+    public long getQueueWaitP99Micros() {
+        return queueWait.getPercentile(0.99) / 1_000;
+    }
+
+    @Override
+    public double getDispatchLatencyMeanMicros() {
+        return dispatchLatency.getMean() / 1_000.0;
+    }
+
+    @Override
+    public long getDispatchLatencyP99Micros() {
+        return dispatchLatency.getPercentile(0.99) / 1_000;
+    }
+
+    @Override
+    public double getRunTimeMeanMicros() {
+        return runTime.getMean() / 1_000.0;
+    }
+
+    @Override
+    public long getRunTimeP99Micros() {
+        return runTime.getPercentile(0.99) / 1_000;
+    }
+
+    @Override
+    public void resetHistograms() {
+        queueWait.reset();
+        dispatchLatency.reset();
+        runTime.reset();
+    }
+
+    /**
+     * Number of tasks that workers ran inline while waiting for a nested batch.
+     */
+    public long getHelpedCount() {
+        return helpedCount.get();
+    }
+
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getDispatchLatencyHistogram() {
+        return dispatchLatency;
+    }
+
+    public LatencyHistogram getRunTimeHistogram() {
+        return runTime;
+    }
+
+    /**
+     * Registers this executor's metrics with the platform MBean server under
+     * {@code scheduling:type=TiredExecutor,name=<name>}. The registration is
+     * removed on shutdown.
+     */
+    public synchronized void registerMBean(String name) {
+        if (mbeanName != null)
+            throw new IllegalStateException("Executor is already registered as " + mbeanName);
+        try {
+            ObjectName objectName = new ObjectName("scheduling:type=TiredExecutor,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            mbeanName = objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("cannot register executor MBean: " + e.getMessage(), e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (mbeanName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (JMException e) {
+            System.out.println("[TiredExecutor] MBean unregister failed: " + e.getMessage());
+        }
+        mbeanName = null;
+    }
+
+    /**
+     * Switches every worker to the given handoff mode, trading idle CPU use for
+     * lower dispatch latency (or the other way around). Workers started later
+     * use the new mode as well.
+     */
+    public synchronized void setHandoffMode(HandoffMode handoffMode) {
+        if (handoffMode == null)
+            throw new IllegalArgumentException("handoff mode cannot be null");
+        this.handoffMode = handoffMode;
+        for (TiredThread w : workers) {
+            w.setHandoffMode(handoffMode);
+        }
+    }
+
+    /**
+     * Replaces the policy that picks an idle worker for each queued task; see
+     * {@link SchedulingPolicy#forName} for the built-in ones. Has no effect in
+     * RING mode, where workers claim tasks themselves.
+     */
+    public synchronized void setSchedulingPolicy(SchedulingPolicy policy) {
+        if (policy == null)
+            throw new IllegalArgumentException("scheduling policy cannot be null");
+        this.schedulingPolicy = policy;
+    }
+
+    public synchronized SchedulingPolicy getSchedulingPolicy() {
+        return schedulingPolicy;
+    }
+
+    private synchronized PolicyStats currentPolicyStats() {
+        return policyStats.computeIfAbsent(schedulingPolicy.getName(), name -> new PolicyStats());
+    }
+
+    /**
+     * Sets how long a queued task of a lower priority class may wait before it
+     * is dispatched ahead of higher priority work.
+     */
+    public synchronized void setStarvationThreshold(long millis) {
+        if (millis <= 0)
+            throw new IllegalArgumentException("starvation threshold must be positive");
+        pending.setStarvationNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    /**
+     * Stops accepting tasks, lets the workers drain the queue and waits until
+     * all of them have exited. In RING mode it first waits for submits that
+     * were already accepted to reach the ring, so every accepted task runs on
+     * a worker and none is left for the caller.
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (this) {
+            // Ensure shutdown is executed only once
+            if (!shutdown.compareAndSet(false, true)) {
+                return;
+            }
+            // idle workers can stop right away; busy ones stop once the queue is empty
+            for (TiredThread w : idleWorkers) {
+                liveWorkers--;
+                w.shutdown();
+            }
+            idleWorkers.clear();
+            // submitters blocked on a full queue give up
+            this.notifyAll();
+            unregisterMBean();
+        }
+        if (ring != null) {
+            // a submit that passed its shutdown check finishes its offer first, so
+            // no task is left behind the workers (a blocked one gives up on the flag)
+            while (ringSubmitters.get() > 0) {
+                Thread.yield();
+            }
+            synchronized (this) {
+                // ring workers are never in the idle list; each drains the ring before it exits
+                for (TiredThread w : workers) {
+                    liveWorkers--;
+                    w.shutdown();
+                }
+            }
+        }
+        List<TiredThread> toJoin;
+        synchronized (this) {
+            toJoin = new ArrayList<>(workers);
         }
         // waiting until the thread are shutdown for real
-        for (int i = 0; i < workers.length; i++) {
-            workers[i].join();
+        for (TiredThread w : toJoin) {
+            w.join();
         }
-        idleMinHeap.clear();
     }
 
     public synchronized String getWorkerReport() {
@@ -143,31 +1176,122 @@ public class TiredExecutor {
                     .append(w.getTimeUsed() / 1_000_000.0).append(" ms")
                     .append(" | Idle Time: ")
                     .append(w.getTimeIdle() / 1_000_000.0).append(" ms")
-                    .append("\n");
+                    .append(" | Fatigue Rate: ").append(w.getFatigueRate())
+                    .append(" | Tasks: ").append(w.getTasksCompleted())
+                    .append(" | Tasks/sec: ").append(w.getTasksPerSecond())
+                    .append(" | Throughput: ").append(w.getThroughput()).append(" units/s");
+            if (w.isRetired()) {
+                sb.append(" | retired");
+            }
+            sb.append("\n");
         }
 
         sb.append("------------------------------------------\n");
+        sb.append("Workers: ").append(liveWorkers).append(" live / ")
+                .append(workers.size()).append(" started\n");
         sb.append("Fairness (Sum of Squared Deviations): ")
                 .append(calculateFairness()).append("\n");
+        sb.append("Rate Fairness (Sum of Squared Deviations of Fatigue Rate): ")
+                .append(calculateRateFairness()).append("\n");
+        sb.append("------------------------------------------\n");
+        int capacity = getQueueCapacity();
+        sb.append("Dispatch: ").append(dispatchMode)
+                .append(" | Queue Depth: ").append(getQueueDepth())
+                .append(" | Capacity: ").append(capacity == Integer.MAX_VALUE ? "unbounded" : capacity)
+                .append(" | Peak: ").append(peakQueueDepth)
+                .append(" | Blocked: ").append(blockedCount)
+                .append(" | Rejected: ").append(rejectedCount)
+                .append(" | Shed: ").append(shedCount)
+                .append(" | Caller Runs: ").append(callerRunsCount)
+                .append("\n");
+        pending.appendReport(sb);
+        sb.append("------------------------------------------\n");
+        sb.append("In Flight: ").append(inFlight.get())
+                .append(" | Utilization: ").append(getUtilization())
+                .append(" | Cumulative Utilization: ").append(getCumulativeUtilization())
+                .append(" | Helped: ").append(helpedCount.get())
+                .append("\n");
+        sb.append("Queue Wait: ").append(queueWait.summary()).append("\n");
+        sb.append("Dispatch Latency: ").append(dispatchLatency.summary()).append("\n");
+        sb.append("Run Time: ").append(runTime.summary()).append("\n");
+        for (ChunkPolicy policy : ChunkPolicy.values()) {
+            LatencyHistogram makespan = makespans[policy.ordinal()];
+            double costPerMs = makespan.getCount() == 0 ? 0.0
+                    : chunkedCost[policy.ordinal()] / (makespan.getMean() * makespan.getCount() / 1_000_000.0);
+            sb.append("Chunking [").append(policy).append("]")
+                    .append(" | Batches: ").append(makespan.getCount())
+                    .append(" | Mean Makespan: ").append(makespan.getMean() / 1_000_000.0).append(" ms")
+                    .append(" | Work Rate: ").append(costPerMs).append(" units/ms")
+                    .append("\n");
+        }
+        for (Map.Entry<String, PolicyStats> entry : policyStats.entrySet()) {
+            PolicyStats stats = entry.getValue();
+            sb.append("Policy [").append(entry.getKey()).append("]")
+                    .append(" | Tasks: ").append(stats.tasks)
+                    .append(" | Batches: ").append(stats.makespan.getCount())
+                    .append(" | Mean Makespan: ").append(stats.makespan.getMean() / 1_000_000.0).append(" ms")
+                    .append(" | Fairness: ").append(stats.fairness(workers))
+                    .append("\n");
+        }
         sb.append("==========================================\n");
 
         return sb.toString();
     }
 
+    /**
+     * Fairness of the accumulated fatigue among workers that are still live.
+     * Retired workers are left out since they stopped accumulating fatigue.
+     */
     private double calculateFairness() {
-        double sum = 0.0;
+        List<TiredThread> live = new ArrayList<>();
         for (TiredThread w : workers) {
+            if (!w.isRetired()) {
+                live.add(w);
+            }
+        }
+        if (live.isEmpty()) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        for (TiredThread w : live) {
             sum += w.getFatigue();
         }
 
-        double avg = sum / workers.length;
+        double avg = sum / live.size();
 
         double fairness = 0.0;
-        for (TiredThread w : workers) {
+        for (TiredThread w : live) {
             double diff = w.getFatigue() - avg;
             fairness += diff * diff;
         }
 
         return fairness;
     }
+
+    /**
+     * Fairness of the fatigue rate (fatigue per nanosecond of lifetime) among
+     * all workers ever started. Unlike raw fatigue, the rate can be compared
+     * between workers that joined late or retired early.
+     */
+    private double calculateRateFairness() {
+        if (workers.isEmpty()) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        for (TiredThread w : workers) {
+            sum += w.getFatigueRate();
+        }
+
+        double avg = sum / workers.size();
+
+        double fairness = 0.0;
+        for (TiredThread w : workers) {
+            double diff = w.getFatigueRate() - avg;
+            fairness += diff * diff;
+        }
+
+        return fairness;
+    }
 }
@@ -0,0 +1,49 @@
+package scheduling;
+
+/**
+ * Live metrics of a {@link TiredExecutor}, exposed as a platform MBean by
+ * {@link TiredExecutor#registerMBean(String)} so they can be watched with
+ * jconsole or JDK Mission Control while a job runs.
+ * Durations are in microseconds.
+ */
+public interface TiredExecutorMXBean {
+
+    int getPoolSize();
+
+    int getBusyWorkers();
+
+    int getInFlight();
+
+    int getQueueDepth();
+
+    int getPeakQueueDepth();
+
+    long getTasksCompleted();
+
+    long getRejectedCount();
+
+    long getShedCount();
+
+    /** Busy workers / live workers, right now. */
+    double getUtilization();
+
+    /** Work time / (work + idle) time, summed over every worker ever started. */
+    double getCumulativeUtilization();
+
+    /** Tasks per second of lifetime, indexed by worker id. */
+    double[] getWorkerTasksPerSecond();
+
+    double getQueueWaitMeanMicros();
+
+    long getQueueWaitP99Micros();
+
+    double getDispatchLatencyMeanMicros();
+
+    long getDispatchLatencyP99Micros();
+
+    double getRunTimeMeanMicros();
+
+    long getRunTimeP99Micros();
+
+    void resetHistograms();
+}
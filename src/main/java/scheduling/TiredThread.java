@@ -2,8 +2,11 @@ package scheduling;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 public class TiredThread extends Thread implements Comparable<TiredThread> {
 
@@ -24,18 +27,40 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
     private final AtomicLong timeUsed = new AtomicLong(0); // Total time spent executing tasks
     private final AtomicLong timeIdle = new AtomicLong(0); // Total time spent idle
     private final AtomicLong idleStartTime = new AtomicLong(0); // Timestamp when the worker became idle
+    private final AtomicLong tasksCompleted = new AtomicLong(0); // Tasks run to completion or failure
+
+    private volatile HandoffMode handoffMode; // How the worker waits for its next task
+
+    private long idleTimeoutNanos = 0; // Idle time after which the worker asks to retire (0 = never)
+    private Predicate<TiredThread> retireCheck = null; // Decides whether the worker may retire
+    private volatile boolean retired = false; // True once the worker left because it was idle too long
+    private TiredExecutor owner = null; // Executor that started this worker, if any
+    private volatile double throughput = 0.0; // Smoothed work units per nanosecond (0 = not measured yet)
+    private TaskSource source = null; // Shared task source to claim from instead of the handoff queue
 
     public TiredThread(int id, double fatigueFactor) {
+        this(id, fatigueFactor, HandoffMode.BLOCKING);
+    }
+
+    public TiredThread(int id, double fatigueFactor, HandoffMode handoffMode) {
+        super(String.format("FF=%.2f", fatigueFactor));
+        if (handoffMode == null) {
+            throw new IllegalArgumentException("handoff mode cannot be null");
+        }
         this.id = id;
         this.fatigueFactor = fatigueFactor;
+        this.handoffMode = handoffMode;
         this.idleStartTime.set(System.nanoTime());
-        setName(String.format("FF=%.2f", fatigueFactor));
     }
 
     public int getWorkerId() {
         return id;
     }
 
+    public double getFatigueFactor() {
+        return fatigueFactor;
+    }
+
     public double getFatigue() {
         return fatigueFactor * timeUsed.get();
     }
@@ -52,6 +77,106 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
         return timeIdle.get();
     }
 
+    /**
+     * Fatigue per nanosecond of the worker's lifetime (work + idle time).
+     * Unlike the raw fatigue, it can be compared between workers that were
+     * started at different times.
+     */
+    public double getFatigueRate() {
+        long lifetime = timeUsed.get() + timeIdle.get();
+        if (lifetime == 0)
+            return 0.0;
+        return getFatigue() / lifetime;
+    }
+
+    public long getTasksCompleted() {
+        return tasksCompleted.get();
+    }
+
+    /**
+     * Tasks completed per second of the worker's lifetime (work + idle time).
+     */
+    public double getTasksPerSecond() {
+        long lifetime = timeUsed.get() + timeIdle.get();
+        if (lifetime == 0)
+            return 0.0;
+        return tasksCompleted.get() * 1_000_000_000.0 / lifetime;
+    }
+
+    /**
+     * Measured throughput in work units per second, smoothed over recent
+     * chunks; 0 until the worker processed a chunk of ranged work.
+     */
+    public double getThroughput() {
+        return throughput * 1_000_000_000.0;
+    }
+
+    /**
+     * Folds a measured chunk (work units done in the given time) into the
+     * throughput estimate, using an exponentially weighted moving average.
+     */
+    void recordThroughput(double units, long nanos) {
+        if (units <= 0 || nanos <= 0)
+            return;
+        double sample = units / nanos;
+        double current = throughput;
+        throughput = current == 0.0 ? sample : 0.7 * current + 0.3 * sample;
+    }
+
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Lets the worker retire after waiting {@code timeoutNanos} for a task,
+     * provided {@code retireCheck} agrees. Must be called before start().
+     */
+    void setIdleTimeout(long timeoutNanos, Predicate<TiredThread> retireCheck) {
+        if (timeoutNanos <= 0 || retireCheck == null) {
+            throw new IllegalArgumentException("invalid idle timeout");
+        }
+        this.idleTimeoutNanos = timeoutNanos;
+        this.retireCheck = retireCheck;
+    }
+
+    TiredExecutor getOwner() {
+        return owner;
+    }
+
+    /**
+     * Records the executor this worker serves. Must be called before start().
+     */
+    void setOwner(TiredExecutor owner) {
+        this.owner = owner;
+    }
+
+    TaskSource getTaskSource() {
+        return source;
+    }
+
+    /**
+     * Makes the worker claim its tasks from {@code source} instead of waiting
+     * for the executor to hand them over. Must be called before start().
+     */
+    void setTaskSource(TaskSource source) {
+        this.source = source;
+    }
+
+    public HandoffMode getHandoffMode() {
+        return handoffMode;
+    }
+
+    /**
+     * Changes how this worker waits for tasks. Takes effect the next time the
+     * worker becomes idle.
+     */
+    public void setHandoffMode(HandoffMode handoffMode) {
+        if (handoffMode == null) {
+            throw new IllegalArgumentException("handoff mode cannot be null");
+        }
+        this.handoffMode = handoffMode;
+    }
+
     /**
      * Assign a task to this worker.
      * This method is non-blocking: if the worker is not ready to accept a task,
@@ -89,6 +214,8 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
         catch (InterruptedException e) {
             System.out.println("[TiredThread] Shutdown interrupted:  " + e.getMessage());
         }
+        // a worker parked on a task source does not watch the handoff queue
+        LockSupport.unpark(this);
     }
 
     @Override
@@ -97,14 +224,22 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
         try {
             while (true) {
 
-                // calculating Idle time (because take() blocks the thread until there is a
-                // task)
-                Runnable task = handoff.take();
+                // calculating Idle time (because awaitTask() blocks the thread until there is a
+                // task); time spent spinning counts as idle time as well
+                Runnable task = awaitTask();
                 long endTime = System.nanoTime();
                 this.timeIdle.addAndGet(endTime - this.idleStartTime.get());
 
-                // first condition - checks if shutdown was made while waiting at take()
-                if (!alive.get() || task == POISON_PILL)
+                // the worker was idle for too long and the executor let it retire
+                if (task == null) {
+                    retired = true;
+                    alive.set(false);
+                    break;
+                }
+
+                // first condition - checks if shutdown was made while waiting at take();
+                // a worker on a task source keeps running what it claimed until the pill
+                if ((!alive.get() && source == null) || task == POISON_PILL)
                     break;
 
                 // counting used time
@@ -112,13 +247,18 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
                 long startTime = System.nanoTime();
 
                 // with try{},finally{} we are making sure that even if run() throws exception,
-                // the TiredThread fields will remain valid
+                // the TiredThread fields will remain valid and the worker keeps serving tasks
                 try {
                     task.run();
+                } catch (RuntimeException e) {
+                    // a failing task must not kill the worker; whoever submitted it
+                    // is expected to collect failures (TiredExecutor.submitAll does)
+                    System.out.println("[TiredThread] task failed: " + e);
                 } finally {
                     busy.set(false);
                     endTime = System.nanoTime();
                     this.timeUsed.addAndGet(endTime - startTime);
+                    this.tasksCompleted.incrementAndGet();
                     this.idleStartTime.set(endTime);
                 }
             }
@@ -132,6 +272,99 @@ public class TiredThread extends Thread implements Comparable<TiredThread> {
 
     }
 
+    /**
+     * Waits for the next task according to the current handoff mode:
+     * spin with onSpinWait(), then yield, then park in take().
+     * Returns null if the idle timeout expired and the worker may retire.
+     */
+    private Runnable awaitTask() throws InterruptedException {
+        if (source != null) {
+            return awaitFromSource();
+        }
+        HandoffMode mode = this.handoffMode;
+        if (mode.getSpinNanos() > 0 || mode.getYieldNanos() > 0) {
+            long spinDeadline = System.nanoTime() + mode.getSpinNanos();
+            long yieldDeadline = spinDeadline + mode.getYieldNanos();
+            while (true) {
+                Runnable task = handoff.poll();
+                if (task != null) {
+                    return task;
+                }
+                long now = System.nanoTime();
+                if (now - spinDeadline < 0) {
+                    Thread.onSpinWait();
+                } else if (now - yieldDeadline < 0) {
+                    Thread.yield();
+                } else {
+                    break;
+                }
+            }
+        }
+        if (idleTimeoutNanos <= 0) {
+            return handoff.take();
+        }
+        while (true) {
+            Runnable task = handoff.poll(idleTimeoutNanos, TimeUnit.NANOSECONDS);
+            if (task != null) {
+                return task;
+            }
+            if (retireCheck.test(this)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Claims the next task from the task source without taking any lock: spin,
+     * then yield, then park until a producer unparks us. The worker registers
+     * as parked before it checks the source one last time, and producers
+     * publish a task before they look for a parked worker, so one of the two
+     * always sees the other and the park needs no timeout. The handoff queue
+     * is only checked once shutdown was requested, and only after the source
+     * ran dry, so the worker drains the source before it exits.
+     */
+    private Runnable awaitFromSource() throws InterruptedException {
+        HandoffMode mode = this.handoffMode;
+        long spinDeadline = System.nanoTime() + mode.getSpinNanos();
+        long yieldDeadline = spinDeadline + mode.getYieldNanos();
+        while (true) {
+            Runnable task = pollSource();
+            if (task != null) {
+                return task;
+            }
+            long now = System.nanoTime();
+            if (now - spinDeadline < 0) {
+                Thread.onSpinWait();
+            } else if (now - yieldDeadline < 0) {
+                Thread.yield();
+            } else {
+                source.parking(this);
+                try {
+                    // check again after registering, so a task offered in between is not missed
+                    task = pollSource();
+                    if (task != null) {
+                        return task;
+                    }
+                    // an unpark that came first leaves a permit, so park() returns at once
+                    LockSupport.park(this);
+                } finally {
+                    source.unparked(this);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("interrupted while waiting for a task");
+                }
+            }
+        }
+    }
+
+    private Runnable pollSource() {
+        Runnable task = source.poll();
+        if (task == null && !alive.get()) {
+            task = handoff.poll();
+        }
+        return task;
+    }
+
     @Override
     public int compareTo(TiredThread o) {
         return Double.compare(this.getFatigue(), o.getFatigue());
@@ -0,0 +1,171 @@
+package spl.lae;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import scheduling.TiredExecutor;
+
+/**
+ * Machine constants the engine uses to decide how to run each node: the
+ * time of one floating point operation, of moving one byte, and the
+ * overhead of handing a batch of tasks to the executor and waiting for it.
+ * {@link #calibrated()} measures them once per process; with
+ * -Dlae.costModel=&lt;file&gt; the measurements are saved to that file and
+ * read back by later runs, so a machine is only calibrated once.
+ * Engines do not plan by default; Main opts in when -Dlae.costModel is set.
+ */
+public final class CostModel {
+
+    private static CostModel calibrated = null; // guarded by CostModel.class
+    private static volatile double sink; // keeps the calibration loops from being optimized away
+
+    private final double nanosPerFlop;
+    private final double nanosPerByte;
+    private final double dispatchNanos;
+
+    public CostModel(double nanosPerFlop, double nanosPerByte, double dispatchNanos) {
+        if (!(nanosPerFlop > 0) || !(nanosPerByte >= 0) || !(dispatchNanos >= 0))
+            throw new IllegalArgumentException("invalid cost model constants");
+        this.nanosPerFlop = nanosPerFlop;
+        this.nanosPerByte = nanosPerByte;
+        this.dispatchNanos = dispatchNanos;
+    }
+
+    /**
+     * The constants of this machine, measured on first use (or loaded from
+     * the -Dlae.costModel file).
+     */
+    public static synchronized CostModel calibrated() {
+        if (calibrated == null) {
+            String file = System.getProperty("lae.costModel");
+            Path path = file == null ? null : Paths.get(file);
+            if (path != null && Files.exists(path))
+                calibrated = load(path);
+            if (calibrated == null) {
+                calibrated = measure();
+                if (path != null)
+                    calibrated.save(path);
+            }
+        }
+        return calibrated;
+    }
+
+    public double getNanosPerFlop() {
+        return nanosPerFlop;
+    }
+
+    public double getNanosPerByte() {
+        return nanosPerByte;
+    }
+
+    public double getDispatchNanos() {
+        return dispatchNanos;
+    }
+
+    /**
+     * Estimated time of work with the given number of floating point
+     * operations that moves the given number of bytes.
+     */
+    public double estimateNanos(double flops, double bytes) {
+        return flops * nanosPerFlop + bytes * nanosPerByte;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cost Model: flop=%.3f ns | byte=%.3f ns | dispatch=%.1f us",
+                nanosPerFlop, nanosPerByte, dispatchNanos / 1000.0);
+    }
+
+    private static CostModel measure() {
+        // multiply-add loop as in a row x column product
+        int n = 96;
+        double[][] a = new double[n][n];
+        double[][] b = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = i + j;
+                b[i][j] = i - j;
+            }
+        }
+        double flops = 2.0 * n * n * n;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 8; round++) {
+            long start = System.nanoTime();
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    for (int k = 0; k < n; k++) {
+                        sum += a[i][k] * b[j][k];
+                    }
+                }
+            }
+            sink = sum;
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double perFlop = Math.max(best / flops, 1e-3);
+
+        // copying a buffer that does not fit the first cache levels, read + write
+        double[] source = new double[1 << 19];
+        long bestCopy = Long.MAX_VALUE;
+        for (int round = 0; round < 8; round++) {
+            long start = System.nanoTime();
+            double[] copy = source.clone();
+            sink = copy[round];
+            bestCopy = Math.min(bestCopy, System.nanoTime() - start);
+        }
+        double perByte = bestCopy / (2.0 * source.length * Double.BYTES);
+
+        // a batch of empty tasks on a small pool: submission, wake-up and completion
+        TiredExecutor executor = new TiredExecutor(2);
+        long bestDispatch = Long.MAX_VALUE;
+        try {
+            List<Runnable> batch = new ArrayList<>();
+            batch.add(() -> sink = 1);
+            batch.add(() -> sink = 2);
+            for (int round = 0; round < 32; round++) {
+                long start = System.nanoTime();
+                executor.submitAll(batch);
+                bestDispatch = Math.min(bestDispatch, System.nanoTime() - start);
+            }
+        } finally {
+            try {
+                executor.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new CostModel(perFlop, perByte, bestDispatch);
+    }
+
+    private static CostModel load(Path path) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+            return new CostModel(Double.parseDouble(properties.getProperty("nanosPerFlop")),
+                    Double.parseDouble(properties.getProperty("nanosPerByte")),
+                    Double.parseDouble(properties.getProperty("dispatchNanos")));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[CostModel] cannot load " + path + ", calibrating again: " + e);
+            return null;
+        }
+    }
+
+    private void save(Path path) {
+        Properties properties = new Properties();
+        properties.setProperty("nanosPerFlop", Double.toString(nanosPerFlop));
+        properties.setProperty("nanosPerByte", Double.toString(nanosPerByte));
+        properties.setProperty("dispatchNanos", Double.toString(dispatchNanos));
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, "LinearAlgebraEngine cost model");
+        } catch (IOException e) {
+            System.out.println("[CostModel] cannot save " + path + ": " + e);
+        }
+    }
+}
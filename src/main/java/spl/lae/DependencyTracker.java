@@ -0,0 +1,102 @@
+package spl.lae;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+/**
+ * Drives the evaluation order of one job without rescanning the tree. A single
+ * iterative post-order pass records, for every operation node, its parents
+ * and how many of its children are still unresolved; nodes whose children
+ * are all matrices start out ready. Each resolved node then makes its parents
+ * ready once their last child is done, so a whole job costs O(nodes) and no
+ * recursion, however deep the tree.
+ * Not thread-safe: only the job's driver thread uses it, except for
+ * {@link #hasSingleUser}, which never changes after construction.
+ */
+class DependencyTracker {
+
+    // per operation node, the nodes that use it as an operand (once per use)
+    private final Map<ComputationNode, List<ComputationNode>> parents = new IdentityHashMap<>();
+    // per operation node, operands that are not resolved yet
+    private final Map<ComputationNode, Integer> pendingChildren = new IdentityHashMap<>();
+    private final Deque<ComputationNode> ready = new ArrayDeque<>();
+    // per operation node, how many distinct nodes use it; fixed after construction
+    private final Map<ComputationNode, Integer> users = new IdentityHashMap<>();
+
+    /**
+     * Tracks the tree with every top node of {@code kernels} depending on its
+     * kernel's inputs instead of its children; the nodes fused into a kernel
+     * are never tracked.
+     */
+    DependencyTracker(ComputationNode root, Map<ComputationNode, ElementwiseKernel> kernels) {
+        if (root.getNodeType() == ComputationNodeType.MATRIX)
+            return;
+        // post-order with an explicit stack: a node is finished after all of its children
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        pendingChildren.put(root, 0);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.pop();
+            int pending = 0;
+            ElementwiseKernel kernel = kernels.get(node);
+            for (ComputationNode child : kernel != null ? kernel.getInputs() : node.getChildren()) {
+                if (child.getNodeType() == ComputationNodeType.MATRIX)
+                    continue;
+                pending++;
+                List<ComputationNode> childParents = parents.computeIfAbsent(child, c -> new ArrayList<>());
+                // a node's operands are listed together, so a repeated user is the last one added
+                if (childParents.isEmpty() || childParents.get(childParents.size() - 1) != node)
+                    users.merge(child, 1, Integer::sum);
+                childParents.add(node);
+                // a shared operand is analysed once, however many parents it has
+                if (!pendingChildren.containsKey(child)) {
+                    pendingChildren.put(child, 0);
+                    stack.push(child);
+                }
+            }
+            pendingChildren.put(node, pending);
+            if (pending == 0)
+                ready.add(node);
+        }
+    }
+
+    /**
+     * Removes and returns every node that became ready since the last call.
+     */
+    List<ComputationNode> drainReady() {
+        List<ComputationNode> drained = new ArrayList<>(ready);
+        ready.clear();
+        return drained;
+    }
+
+    /**
+     * Records that {@code node} was resolved; parents whose last pending
+     * operand it was become ready.
+     */
+    void resolved(ComputationNode node) {
+        List<ComputationNode> users = parents.remove(node);
+        if (users == null)
+            return;
+        for (ComputationNode parent : users) {
+            int pending = pendingChildren.merge(parent, -1, Integer::sum);
+            if (pending == 0)
+                ready.add(parent);
+        }
+    }
+
+    /**
+     * True if a single node refers to {@code node}, possibly in several of
+     * its operand slots, as a square A * A does.
+     */
+    boolean hasSingleUser(ComputationNode node) {
+        Integer count = users.get(node);
+        return count != null && count == 1;
+    }
+}
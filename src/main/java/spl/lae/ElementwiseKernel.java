@@ -0,0 +1,301 @@
+package spl.lae;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import memory.AccessMode;
+import memory.SharedMatrix;
+import memory.SharedVector;
+import memory.VectorOrientation;
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+/**
+ * One fused kernel for a maximal elementwise subtree (ADD, SUBTRACT, NEGATE
+ * and TRANSPOSE nodes). Those operations are linear, so the whole subtree is
+ * a signed sum of its inputs, each possibly transposed: -(A + B^T)^T becomes
+ * -A^T - B. The kernel computes that sum in a single parallel pass, reading
+ * every input once and writing the output once, instead of copying operands
+ * in and out of a SharedMatrix for every node. A resident input is read in
+ * place through its row or column vectors, and transposed inputs are read
+ * through swapped indices. The output is a row-major SharedMatrix that stays
+ * resident on the kernel's node, the layout its elementwise and left-hand
+ * product users consume in place.
+ * Terms are summed left to right, so a left-nested chain gives the same
+ * result as node by node evaluation; other nestings may round differently.
+ */
+final class ElementwiseKernel {
+
+    private final List<Term> terms; // in operand order, left to right
+    private final int fusedNodes; // elementwise nodes this kernel replaces
+
+    private ElementwiseKernel(List<Term> terms, int fusedNodes) {
+        this.terms = terms;
+        this.fusedNodes = fusedNodes;
+    }
+
+    /**
+     * Finds the maximal elementwise subtrees below {@code root} and returns a
+     * kernel for each of them, keyed by the subtree's top node. An elementwise
+     * node joins its parent's kernel only if the parent is elementwise too and
+     * nothing else uses the node, so a shared intermediate (see
+     * CommonSubexpressionEliminator) is still computed once. A single node is
+     * left to the engine's per-node path, unless it is an ADD of more than two
+     * operands, which the kernel sums in one pass.
+     */
+    static Map<ComputationNode, ElementwiseKernel> plan(ComputationNode root) {
+        Map<ComputationNode, ElementwiseKernel> kernels = new IdentityHashMap<>();
+        if (root.getNodeType() == ComputationNodeType.MATRIX)
+            return kernels;
+        // uses and first user of every operation node, with an explicit stack
+        Map<ComputationNode, Integer> uses = new IdentityHashMap<>();
+        Map<ComputationNode, ComputationNode> user = new IdentityHashMap<>();
+        List<ComputationNode> nodes = new ArrayList<>();
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        uses.put(root, 0);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.pop();
+            nodes.add(node);
+            for (ComputationNode child : node.getChildren()) {
+                if (child.getNodeType() == ComputationNodeType.MATRIX)
+                    continue;
+                if (uses.merge(child, 1, Integer::sum) == 1) {
+                    user.put(child, node);
+                    stack.push(child);
+                }
+            }
+        }
+        for (ComputationNode node : nodes) {
+            if (!isFusable(node) || absorbed(node, uses, user))
+                continue;
+            ElementwiseKernel kernel = flatten(node, uses, user);
+            if (kernel.fusedNodes > 1 || kernel.terms.size() > 2)
+                kernels.put(node, kernel);
+        }
+        return kernels;
+    }
+
+    /**
+     * A kernel that sums the operands of a single ADD node, k at a time.
+     */
+    static ElementwiseKernel sumOf(ComputationNode add) {
+        List<Term> terms = new ArrayList<>(add.getChildren().size());
+        for (ComputationNode operand : add.getChildren()) {
+            terms.add(new Term(operand, false, false));
+        }
+        return new ElementwiseKernel(terms, 1);
+    }
+
+    /**
+     * True if {@code node} is computed as part of its only user's kernel.
+     */
+    private static boolean absorbed(ComputationNode node, Map<ComputationNode, Integer> uses,
+            Map<ComputationNode, ComputationNode> user) {
+        return isFusable(node) && uses.get(node) == 1 && isFusable(user.get(node));
+    }
+
+    private static boolean isFusable(ComputationNode node) {
+        if (node == null || node.getChildren() == null)
+            return false;
+        int operands = node.getChildren().size();
+        switch (node.getNodeType()) {
+            case ADD:
+                return operands >= 2;
+            case SUBTRACT:
+                return operands == 2;
+            case NEGATE:
+            case TRANSPOSE:
+                return operands == 1;
+            default:
+                return false;
+        }
+    }
+
+    private static ElementwiseKernel flatten(ComputationNode top, Map<ComputationNode, Integer> uses,
+            Map<ComputationNode, ComputationNode> user) {
+        List<Term> terms = new ArrayList<>();
+        int fused = 0;
+        Deque<Term> stack = new ArrayDeque<>();
+        stack.push(new Term(top, false, false));
+        while (!stack.isEmpty()) {
+            Term term = stack.pop();
+            ComputationNode node = term.input;
+            if (node != top && !absorbed(node, uses, user)) {
+                terms.add(term);
+                continue;
+            }
+            fused++;
+            List<ComputationNode> children = node.getChildren();
+            switch (node.getNodeType()) {
+                case NEGATE:
+                    stack.push(new Term(children.get(0), !term.negated, term.transposed));
+                    break;
+                case TRANSPOSE:
+                    stack.push(new Term(children.get(0), term.negated, !term.transposed));
+                    break;
+                case SUBTRACT:
+                    stack.push(new Term(children.get(1), !term.negated, term.transposed));
+                    stack.push(new Term(children.get(0), term.negated, term.transposed));
+                    break;
+                default: // ADD; pushed right to left so the terms come out left to right
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(new Term(children.get(i), term.negated, term.transposed));
+                    }
+            }
+        }
+        return new ElementwiseKernel(terms, fused);
+    }
+
+    /**
+     * The nodes whose matrices this kernel reads, once per use.
+     */
+    List<ComputationNode> getInputs() {
+        List<ComputationNode> inputs = new ArrayList<>(terms.size());
+        for (Term term : terms) {
+            inputs.add(term.input);
+        }
+        return inputs;
+    }
+
+    int getFusedNodes() {
+        return fusedNodes;
+    }
+
+    int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Rows x columns of the kernel's output, from its first (resolved) input.
+     */
+    int[] outputShape() {
+        Term first = terms.get(0);
+        int[] shape = NodePlanner.shapeOf(first.input);
+        return first.transposed ? new int[] { shape[1], shape[0] } : shape;
+    }
+
+    /**
+     * The kernel's (resolved) inputs, one per term. A resident result is
+     * frozen and read in place rather than copied out of its SharedMatrix.
+     */
+    Operand[] readInputs() {
+        Operand[] inputs = new Operand[terms.size()];
+        for (int t = 0; t < inputs.length; t++) {
+            ComputationNode input = terms.get(t).input;
+            SharedMatrix resident = input.getSharedMatrix();
+            if (resident != null && resident.getAccessMode() != AccessMode.FROZEN)
+                resident.setAccessMode(AccessMode.FROZEN); // the kernel only reads it
+            inputs[t] = resident != null ? new Operand(resident) : new Operand(input.getMatrix());
+        }
+        return inputs;
+    }
+
+    /**
+     * Allocates the (zero, row-major) output for the given inputs, checking
+     * that they all have the same shape once transposes are applied.
+     */
+    SharedMatrix allocateOutput(Operand[] inputs) {
+        int rows = -1;
+        int cols = -1;
+        for (int t = 0; t < inputs.length; t++) {
+            Operand m = inputs[t];
+            if (m.rows == 0 || m.columns == 0)
+                throw new IllegalArgumentException("cannot compute elementwise operation on empty matrices");
+            boolean transposed = terms.get(t).transposed;
+            int r = transposed ? m.columns : m.rows;
+            int c = transposed ? m.rows : m.columns;
+            if (rows == -1) {
+                rows = r;
+                cols = c;
+            } else if (r != rows || c != cols) {
+                throw new IllegalArgumentException("cannot compute elementwise operation, mismatch in matrices sizes");
+            }
+        }
+        return new SharedMatrix(rows, cols);
+    }
+
+    /**
+     * Returns one task per row of {@code output}, each computing that row of
+     * the signed sum of {@code inputs}.
+     */
+    List<Runnable> createTasks(Operand[] inputs, SharedMatrix output) {
+        Term[] parts = terms.toArray(new Term[0]);
+        Runnable[] tasks = new Runnable[output.length()];
+        for (int i = 0; i < tasks.length; i++) {
+            final int row = i;
+            tasks[i] = () -> computeRow(parts, inputs, row, output.get(row));
+        }
+        return List.of(tasks);
+    }
+
+    private static void computeRow(Term[] parts, Operand[] inputs, int row, SharedVector out) {
+        int columns = out.length();
+        for (int j = 0; j < columns; j++) {
+            double sum = 0;
+            for (int t = 0; t < parts.length; t++) {
+                Term term = parts[t];
+                double in = term.transposed ? inputs[t].get(j, row) : inputs[t].get(row, j);
+                double v = term.negated ? -in : in;
+                sum = t == 0 ? v : sum + v;
+            }
+            out.set(j, sum);
+        }
+    }
+
+    /**
+     * An input as the row tasks read it: a plain matrix, or a resident
+     * SharedMatrix through its vectors, which are rows or columns depending
+     * on its orientation.
+     */
+    static final class Operand {
+        private final double[][] plain; // null for a resident input
+        private final SharedMatrix resident;
+        private final boolean byRow; // the resident vectors are rows
+        final int rows;
+        final int columns;
+
+        Operand(double[][] plain) {
+            this.plain = plain;
+            this.resident = null;
+            this.byRow = true;
+            this.rows = plain.length;
+            this.columns = plain.length == 0 ? 0 : plain[0].length;
+        }
+
+        Operand(SharedMatrix resident) {
+            this.plain = null;
+            this.resident = resident;
+            int vectors = resident.length();
+            int length = vectors == 0 ? 0 : resident.get(0).length();
+            this.byRow = length == 0 || resident.getOrientation() == VectorOrientation.ROW_MAJOR;
+            this.rows = byRow ? vectors : length;
+            this.columns = byRow ? length : vectors;
+        }
+
+        double get(int row, int column) {
+            if (plain != null)
+                return plain[row][column];
+            return byRow ? resident.get(row).get(column) : resident.get(column).get(row);
+        }
+    }
+
+    /**
+     * An input of the kernel, with the sign and orientation it is summed with.
+     */
+    private static final class Term {
+        final ComputationNode input;
+        final boolean negated;
+        final boolean transposed;
+
+        Term(ComputationNode input, boolean negated, boolean transposed) {
+            this.input = input;
+            this.negated = negated;
+            this.transposed = transposed;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package spl.lae;
+
+/**
+ * Which entry a {@link ResultCache} drops when it runs out of memory.
+ */
+public enum EvictionPolicy {
+    /** The entry that was used least recently. */
+    LRU,
+    /** The entry with the fewest hits; among those, the least recently used. */
+    LFU
+}
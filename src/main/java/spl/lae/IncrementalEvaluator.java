@@ -0,0 +1,277 @@
+package spl.lae;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+/**
+ * Evaluates one expression repeatedly while its leaf matrices change, as in
+ * streaming use where only an input or two differ between evaluations.
+ * The evaluator keeps the result of every operation node. Replacing a leaf
+ * (see {@link #replaceLeaf}) bumps the leaf's version and marks its
+ * ancestors dirty; {@link #evaluate} recomputes only those and reuses the
+ * results of every other subtree.
+ * Dirty nodes are recomputed one height at a time, each as a one-level tree
+ * over its operands' results, and all nodes of a height go to the engine
+ * together as one batch (see {@link LinearAlgebraEngine#runBatch}), so
+ * independent dirty subtrees are computed concurrently.
+ * An ADD node of which only a few operands changed is updated by a delta
+ * instead, adding the new operands and subtracting the old ones from its
+ * previous result in one fused pass. Such updates round differently from a
+ * fresh sum, so a node is summed afresh after {@link #MAX_DELTA_UPDATES}
+ * deltas in a row.
+ * The engine must be reusable. The tree given to the constructor is nested
+ * as {@link LinearAlgebraEngine#run} would nest it, and is never resolved:
+ * its nodes only identify the leaves and the operations.
+ */
+public final class IncrementalEvaluator {
+
+    static final int MAX_DELTA_UPDATES = 16;
+
+    private final LinearAlgebraEngine engine;
+    private final ComputationNode root;
+    private final Map<ComputationNode, List<ComputationNode>> parents = new IdentityHashMap<>();
+    // the maps below are guarded by this
+    private final Map<ComputationNode, Long> versions = new IdentityHashMap<>(); // leaves only
+    private final Map<ComputationNode, double[][]> values = new IdentityHashMap<>(); // current results
+    private final Map<ComputationNode, double[][][]> inputs = new IdentityHashMap<>(); // operand values used
+    private final Map<ComputationNode, Integer> deltas = new IdentityHashMap<>(); // delta updates in a row
+    private final Set<ComputationNode> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private int nodesRecomputed = 0; // by the last evaluation
+    private int nodesReused = 0;
+    private int deltaUpdates = 0;
+
+    public IncrementalEvaluator(LinearAlgebraEngine engine, ComputationNode root) {
+        if (engine == null)
+            throw new IllegalArgumentException("engine cannot be null");
+        if (root == null)
+            throw new IllegalArgumentException("computation root cannot be null");
+        this.engine = engine;
+        this.root = root;
+        root.associativeNesting();
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        parents.put(root, new ArrayList<>());
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.pop();
+            if (node.getNodeType() == ComputationNodeType.MATRIX) {
+                if (node.getMatrix() == null)
+                    throw new IllegalArgumentException("leaf matrix cannot be null");
+                values.put(node, node.getMatrix());
+                versions.put(node, 0L);
+                continue;
+            }
+            if (node.getChildren() == null || node.getChildren().isEmpty())
+                throw new IllegalArgumentException("operation node has no operands");
+            dirty.add(node);
+            for (ComputationNode child : node.getChildren()) {
+                List<ComputationNode> users = parents.get(child);
+                if (users == null) {
+                    parents.put(child, users = new ArrayList<>());
+                    stack.push(child);
+                }
+                users.add(node);
+            }
+        }
+    }
+
+    /**
+     * Replaces the matrix of {@code leaf}, a MATRIX node of this expression,
+     * and marks every node that depends on it dirty. The matrix is used as
+     * is, not copied, and must not be changed afterwards.
+     */
+    public synchronized void replaceLeaf(ComputationNode leaf, double[][] matrix) {
+        if (leaf == null || !versions.containsKey(leaf))
+            throw new IllegalArgumentException("node is not a leaf of this expression");
+        if (matrix == null)
+            throw new IllegalArgumentException("leaf matrix cannot be null");
+        values.put(leaf, matrix);
+        versions.merge(leaf, 1L, Long::sum);
+        Deque<ComputationNode> stack = new ArrayDeque<>(parents.get(leaf));
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.pop();
+            if (dirty.add(node))
+                stack.addAll(parents.get(node));
+        }
+    }
+
+    /**
+     * How many times {@code leaf} was replaced.
+     */
+    public synchronized long getVersion(ComputationNode leaf) {
+        Long version = versions.get(leaf);
+        if (version == null)
+            throw new IllegalArgumentException("node is not a leaf of this expression");
+        return version;
+    }
+
+    /**
+     * Brings every dirty node up to date and returns a copy of the result.
+     * If a node fails, its failure is thrown; the nodes that were not
+     * recomputed stay dirty, so a later call (after fixing the offending
+     * leaf) picks up where this one stopped.
+     */
+    public synchronized double[][] evaluate() {
+        nodesRecomputed = 0;
+        deltaUpdates = 0;
+        nodesReused = inputs.size();
+        for (List<ComputationNode> wave : wavesOf(dirty)) {
+            List<ComputationNode> trees = new ArrayList<>(wave.size());
+            boolean[] delta = new boolean[wave.size()];
+            for (int i = 0; i < wave.size(); i++) {
+                ComputationNode node = wave.get(i);
+                ComputationNode tree = deltaOf(node);
+                delta[i] = tree != null;
+                trees.add(delta[i] ? tree : freshOf(node));
+            }
+            List<JobResult> results = engine.runBatch(trees);
+            Throwable failure = null;
+            for (int i = 0; i < wave.size(); i++) {
+                JobResult result = results.get(i);
+                if (!result.isSuccess()) {
+                    if (failure == null)
+                        failure = result.getFailure();
+                    continue;
+                }
+                ComputationNode node = wave.get(i);
+                if (inputs.containsKey(node))
+                    nodesReused--;
+                values.put(node, result.getMatrix());
+                inputs.put(node, operandValues(node));
+                deltas.put(node, delta[i] ? deltas.getOrDefault(node, 0) + 1 : 0);
+                dirty.remove(node);
+                nodesRecomputed++;
+                if (delta[i])
+                    deltaUpdates++;
+            }
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+        }
+        double[][] result = values.get(root);
+        double[][] copy = new double[result.length][];
+        for (int i = 0; i < result.length; i++) {
+            copy[i] = Arrays.copyOf(result[i], result[i].length);
+        }
+        return copy;
+    }
+
+    /**
+     * Operation nodes recomputed by the last {@link #evaluate}, including
+     * delta updates.
+     */
+    public synchronized int getNodesRecomputed() {
+        return nodesRecomputed;
+    }
+
+    /**
+     * Operation nodes whose previous result the last {@link #evaluate} kept.
+     */
+    public synchronized int getNodesReused() {
+        return nodesReused;
+    }
+
+    public synchronized int getDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    /**
+     * Groups the dirty nodes by height, counting dirty operands only, so every
+     * group only depends on the groups before it.
+     */
+    private List<List<ComputationNode>> wavesOf(Set<ComputationNode> nodes) {
+        Map<ComputationNode, Integer> height = new IdentityHashMap<>();
+        List<List<ComputationNode>> waves = new ArrayList<>();
+        for (ComputationNode start : nodes) {
+            // post-order with an explicit stack: a node is measured once all its dirty operands are
+            Deque<ComputationNode> stack = new ArrayDeque<>();
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                ComputationNode node = stack.peek();
+                if (height.containsKey(node)) {
+                    stack.pop();
+                    continue;
+                }
+                int h = 0;
+                boolean ready = true;
+                for (ComputationNode child : node.getChildren()) {
+                    if (!nodes.contains(child))
+                        continue;
+                    Integer childHeight = height.get(child);
+                    if (childHeight == null) {
+                        stack.push(child);
+                        ready = false;
+                    } else {
+                        h = Math.max(h, childHeight + 1);
+                    }
+                }
+                if (ready) {
+                    stack.pop();
+                    height.put(node, h);
+                    while (waves.size() <= h) {
+                        waves.add(new ArrayList<>());
+                    }
+                    waves.get(h).add(node);
+                }
+            }
+        }
+        return waves;
+    }
+
+    /**
+     * The node's operation over its operands' current results.
+     */
+    private ComputationNode freshOf(ComputationNode node) {
+        List<ComputationNode> operands = new ArrayList<>(node.getChildren().size());
+        for (ComputationNode child : node.getChildren()) {
+            operands.add(new ComputationNode(values.get(child)));
+        }
+        return new ComputationNode(node.getNodeType(), operands);
+    }
+
+    /**
+     * For an ADD node of which fewer than half the operands changed, the sum
+     * of its previous result, the changed operands and the negated old ones;
+     * null if a fresh sum reads less or is due.
+     */
+    private ComputationNode deltaOf(ComputationNode node) {
+        double[][][] used = inputs.get(node);
+        if (node.getNodeType() != ComputationNodeType.ADD || used == null
+                || deltas.getOrDefault(node, 0) >= MAX_DELTA_UPDATES)
+            return null;
+        List<ComputationNode> children = node.getChildren();
+        List<ComputationNode> terms = new ArrayList<>();
+        terms.add(new ComputationNode(values.get(node)));
+        for (int i = 0; i < children.size(); i++) {
+            double[][] current = values.get(children.get(i));
+            if (current == used[i])
+                continue;
+            terms.add(new ComputationNode(current));
+            terms.add(new ComputationNode(ComputationNodeType.NEGATE, List.of(new ComputationNode(used[i]))));
+        }
+        // every changed operand is read twice, plus the previous result once
+        if (terms.size() == 1 || terms.size() >= children.size())
+            return null;
+        return new ComputationNode(ComputationNodeType.ADD, terms);
+    }
+
+    private double[][][] operandValues(ComputationNode node) {
+        List<ComputationNode> children = node.getChildren();
+        double[][][] used = new double[children.size()][][];
+        for (int i = 0; i < used.length; i++) {
+            used[i] = values.get(children.get(i));
+        }
+        return used;
+    }
+}
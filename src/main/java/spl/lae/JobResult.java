@@ -0,0 +1,55 @@
+package spl.lae;
+
+import parser.ComputationNode;
+
+/**
+ * Outcome of one job of a batch (see {@link LinearAlgebraEngine#runBatch}):
+ * the job's root, resolved unless the job failed, what it failed with, and
+ * the job's statistics.
+ */
+public final class JobResult {
+
+    private final ComputationNode root;
+    private final JobStats stats;
+    private final Throwable failure; // null = the root is resolved
+
+    JobResult(ComputationNode root, JobStats stats, Throwable failure) {
+        this.root = root;
+        this.stats = stats;
+        this.failure = failure;
+    }
+
+    public ComputationNode getRoot() {
+        return root;
+    }
+
+    public JobStats getStats() {
+        return stats;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * What the job failed with, or null if it succeeded.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * The job's result matrix. Throws IllegalStateException, with the job's
+     * failure as its cause, if the job failed.
+     */
+    public double[][] getMatrix() {
+        if (failure != null)
+            throw new IllegalStateException("job failed: " + failure, failure);
+        return root.getMatrix();
+    }
+
+    @Override
+    public String toString() {
+        return (failure == null ? "Succeeded | " : "Failed: " + failure + " | ") + stats;
+    }
+}
@@ -0,0 +1,161 @@
+package spl.lae;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of a single {@link LinearAlgebraEngine#run} call.
+ * Unlike the worker report, which accumulates over the executor's lifetime,
+ * these numbers only cover the nodes and tasks of one job.
+ */
+public class JobStats {
+
+    private final AtomicInteger nodesResolved = new AtomicInteger(0);
+    private final AtomicInteger nodesFused = new AtomicInteger(0); // resolved by a fused elementwise kernel
+    private final AtomicInteger nodesFromCache = new AtomicInteger(0); // resolved by a ResultCache hit
+    private final AtomicInteger nodesInline = new AtomicInteger(0); // too small to hand to the executor
+    private final AtomicInteger nodesTiled = new AtomicInteger(0); // products split into row x column tiles
+    private final AtomicInteger tasksSubmitted = new AtomicInteger(0);
+    private final AtomicLong taskTime = new AtomicLong(0); // total time workers spent on this job's tasks
+    private volatile int peakNodesInFlight = 0; // most nodes computed at the same time
+    private volatile long startTime = 0;
+    private volatile long endTime = 0;
+
+    void start() {
+        startTime = System.nanoTime();
+        endTime = 0;
+        peakNodesInFlight = 0;
+    }
+
+    void finish() {
+        endTime = System.nanoTime();
+    }
+
+    void nodeResolved() {
+        nodesResolved.incrementAndGet();
+    }
+
+    /**
+     * Records {@code count} nodes resolved together by one fused kernel.
+     */
+    void nodesFused(int count) {
+        nodesResolved.addAndGet(count);
+        nodesFused.addAndGet(count);
+    }
+
+    void nodeFromCache() {
+        nodesFromCache.incrementAndGet();
+    }
+
+    void nodeInline() {
+        nodesInline.incrementAndGet();
+    }
+
+    void nodeTiled() {
+        nodesTiled.incrementAndGet();
+    }
+
+    /**
+     * Called by the job's driver thread only, with the number of nodes now running.
+     */
+    void nodesInFlight(int count) {
+        if (count > peakNodesInFlight)
+            peakNodesInFlight = count;
+    }
+
+    /**
+     * Wraps the tasks of one node so that their run time is charged to this job.
+     */
+    List<Runnable> track(List<Runnable> tasks) {
+        List<Runnable> tracked = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            tracked.add(() -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    taskTime.addAndGet(System.nanoTime() - start);
+                }
+            });
+        }
+        tasksSubmitted.addAndGet(tasks.size());
+        return tracked;
+    }
+
+    public int getNodesResolved() {
+        return nodesResolved.get();
+    }
+
+    /**
+     * How many of the resolved nodes were computed inside a fused
+     * elementwise kernel rather than one by one.
+     */
+    public int getNodesFused() {
+        return nodesFused.get();
+    }
+
+    /**
+     * Nodes whose result came from the engine's ResultCache; nothing below
+     * them was computed.
+     */
+    public int getNodesFromCache() {
+        return nodesFromCache.get();
+    }
+
+    /**
+     * Nodes (or fused kernels) computed on a single thread because the cost
+     * model found them too small to parallelize.
+     */
+    public int getNodesInline() {
+        return nodesInline.get();
+    }
+
+    public int getNodesTiled() {
+        return nodesTiled.get();
+    }
+
+    public int getTasksSubmitted() {
+        return tasksSubmitted.get();
+    }
+
+    /**
+     * Most nodes that were computed at the same time, i.e. how many
+     * independent subtrees the job could evaluate in parallel.
+     */
+    public int getPeakNodesInFlight() {
+        return peakNodesInFlight;
+    }
+
+    public long getTaskTime() {
+        return taskTime.get();
+    }
+
+    /**
+     * The System.nanoTime() at which the job started, or 0 if it has not.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getWallTime() {
+        if (startTime == 0)
+            return 0;
+        long end = endTime == 0 ? System.nanoTime() : endTime;
+        return end - startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Job: nodes=" + getNodesResolved()
+                + " | fused=" + getNodesFused()
+                + " | cached=" + getNodesFromCache()
+                + " | inline=" + getNodesInline()
+                + " | tiled=" + getNodesTiled()
+                + " | tasks=" + getTasksSubmitted()
+                + " | Task Time: " + getTaskTime() / 1_000_000.0 + " ms"
+                + " | Wall Time: " + getWallTime() / 1_000_000.0 + " ms"
+                + " | Peak Parallel Nodes: " + getPeakNodesInFlight();
+    }
+}
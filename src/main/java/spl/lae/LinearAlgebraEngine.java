@@ -4,42 +4,450 @@ import parser.*;
 import memory.*;
 import scheduling.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
-public class LinearAlgebraEngine {
+public class LinearAlgebraEngine implements AutoCloseable {
 
-    private SharedMatrix leftMatrix = new SharedMatrix();
-    private SharedMatrix rightMatrix = new SharedMatrix();
-    private TiredExecutor executor;
+    private final TiredExecutor executor;
+    private final boolean ownsExecutor; // true if the executor was created by this engine
+    private final boolean reusable; // false: the executor is shut down at the end of run()
+    private final TaskPriority priority; // priority class of this engine's tasks
+    private final long deadlineMillis; // per-job deadline relative to the start of run() (0 = none)
+    private volatile long nodeTimeoutMillis = 0; // max time for one node's tasks (0 = none)
+    private volatile ChunkPolicy chunkPolicy = ChunkPolicy.EQUAL; // how a node's rows are split into tasks
+    private volatile ResultCache resultCache = null; // results kept across jobs (null = none)
+    private volatile CostModel costModel = null; // plans each node's parallelism (null = rows)
 
+    /**
+     * Creates a single-use engine: its executor is shut down when {@link #run}
+     * returns, so every job needs a new engine.
+     */
     public LinearAlgebraEngine(int numThreads) {
-        executor = new TiredExecutor(numThreads);
+        this(numThreads, false);
+    }
+
+    /**
+     * Creates an engine with its own executor.
+     * A reusable engine keeps its workers alive across {@link #run} calls,
+     * including concurrent ones, until {@link #close()} is called.
+     */
+    public LinearAlgebraEngine(int numThreads, boolean reusable) {
+        this.executor = new TiredExecutor(numThreads);
+        this.ownsExecutor = true;
+        this.reusable = reusable;
+        this.priority = TaskPriority.NORMAL;
+        this.deadlineMillis = 0;
+    }
+
+    /**
+     * Creates a reusable engine on top of an executor that is shared with other
+     * engines. The executor is never shut down by the engine; whoever created it
+     * is responsible for shutting it down.
+     */
+    public LinearAlgebraEngine(TiredExecutor executor) {
+        this(executor, TaskPriority.NORMAL, 0);
+    }
+
+    /**
+     * Creates a reusable engine on a shared executor whose jobs run in the given
+     * priority class. If {@code deadlineMillis} is positive, every job's tasks
+     * carry a deadline of that many milliseconds after the job started, which
+     * orders them earliest-deadline-first within the class.
+     */
+    public LinearAlgebraEngine(TiredExecutor executor, TaskPriority priority, long deadlineMillis) {
+        if (executor == null)
+            throw new IllegalArgumentException("executor cannot be null");
+        if (priority == null)
+            throw new IllegalArgumentException("priority cannot be null");
+        if (deadlineMillis < 0)
+            throw new IllegalArgumentException("deadline cannot be negative");
+        this.executor = executor;
+        this.ownsExecutor = false;
+        this.reusable = true;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
     }
 
     public ComputationNode run(ComputationNode computationRoot) {
+        return run(computationRoot, new JobStats());
+    }
+
+    /**
+     * Resolves the whole computation tree, recording this job's statistics in
+     * {@code stats}. Cumulative per-worker statistics are available through
+     * {@link #getWorkerReport()}.
+     */
+    public ComputationNode run(ComputationNode computationRoot, JobStats stats) {
         if (computationRoot == null) {
             throw new IllegalArgumentException("computation root cannot be null");
         }
+        if (stats == null) {
+            throw new IllegalArgumentException("job stats cannot be null");
+        }
+        stats.start();
         try {
+            // tiny jobs may never reach the executor, but a closed engine must still refuse them
+            if (executor.isShutdown())
+                throw new IllegalStateException("Executor has been shut down");
             computationRoot.associativeNesting();
-            ComputationNode curr = computationRoot.findResolvable();
-            while (curr != null) {
-                loadAndCompute(curr);
-                curr = computationRoot.findResolvable();
-            }
+            Job job = prepare(computationRoot, stats, new LinkedBlockingQueue<>());
+            drive(List.of(job), job.finished);
+            if (job.failure instanceof RuntimeException)
+                throw (RuntimeException) job.failure;
+            if (job.failure instanceof Error)
+                throw (Error) job.failure;
             return computationRoot;
         } catch (IllegalStateException e) {
-            throw new RuntimeException("Executor already shut down", e);
+            if (executor.isShutdown())
+                throw new RuntimeException("Executor already shut down", e);
+            throw e;
+        } finally {
+            stats.finish();
+            if (!reusable) {
+                shutdownExecutor();
+            }
+        }
+    }
+
+    /**
+     * Resolves many independent trees as one batch, on this engine's pool.
+     * The calling thread drives all of them at once: the ready nodes of every
+     * job are handed to the executor together, taking turns between jobs, so
+     * workers left idle by one narrow job pick up another job's nodes instead
+     * of waiting for it to finish (see {@link #drive}).
+     * Returns one {@link JobResult} per root, in iteration order, with the
+     * job's own statistics. A failing job does not fail the batch: its result
+     * holds the failure and the other jobs run to completion. Roots must not
+     * share nodes, neither with each other nor with a job running elsewhere.
+     */
+    public List<JobResult> runBatch(Collection<ComputationNode> computationRoots) {
+        if (computationRoots == null) {
+            throw new IllegalArgumentException("computation roots cannot be null");
+        }
+        List<ComputationNode> roots = new ArrayList<>(computationRoots);
+        JobStats[] stats = new JobStats[roots.size()];
+        Job[] jobs = new Job[roots.size()];
+        Throwable[] failures = new Throwable[roots.size()];
+        BlockingQueue<NodeResult> finished = new LinkedBlockingQueue<>();
+        try {
+            if (executor.isShutdown())
+                throw new IllegalStateException("Executor has been shut down");
+            List<Job> started = new ArrayList<>(roots.size());
+            for (int i = 0; i < roots.size(); i++) {
+                stats[i] = new JobStats();
+                stats[i].start();
+                try {
+                    ComputationNode root = roots.get(i);
+                    if (root == null)
+                        throw new IllegalArgumentException("computation root cannot be null");
+                    root.associativeNesting();
+                    jobs[i] = prepare(root, stats[i], finished);
+                    started.add(jobs[i]);
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                    stats[i].finish();
+                }
+            }
+            drive(started, finished);
+        } catch (IllegalStateException e) {
+            if (executor.isShutdown())
+                throw new RuntimeException("Executor already shut down", e);
+            throw e;
+        } finally {
+            if (!reusable) {
+                shutdownExecutor();
+            }
+        }
+        List<JobResult> results = new ArrayList<>(roots.size());
+        for (int i = 0; i < roots.size(); i++) {
+            Throwable failure = jobs[i] != null ? jobs[i].failure : failures[i];
+            results.add(new JobResult(roots.get(i), stats[i], failure));
+        }
+        return results;
+    }
+
+    /**
+     * Prepares a job for {@link #drive}: plans its fused kernels, resolves
+     * what the result cache already has, and tracks which nodes are ready.
+     * Chains of elementwise nodes are computed as one node, by the fused
+     * kernel that {@link ElementwiseKernel#plan} found for them.
+     * With a result cache (see {@link #setResultCache}), nodes whose result
+     * an earlier job computed are resolved from it first, and every computed
+     * node's result is added to it.
+     */
+    private Job prepare(ComputationNode root, JobStats stats, BlockingQueue<NodeResult> finished) {
+        Map<ComputationNode, ElementwiseKernel> kernels = ElementwiseKernel.plan(root);
+        ResultCache cache = this.resultCache;
+        Map<ComputationNode, String> keys = null;
+        if (cache != null && root.getNodeType() != ComputationNodeType.MATRIX) {
+            keys = ResultCache.keysOf(root);
+            resolveFromCache(root, kernels, cache, keys, stats);
+        }
+        DependencyTracker tracker = root.getNodeType() == ComputationNodeType.MATRIX ? null
+                : new DependencyTracker(root, kernels);
+        CostModel model = this.costModel;
+        NodePlanner planner = model == null ? null : new NodePlanner(model, executor.getMaxPoolSize());
+        Job job = new Job(root, stats, kernels, tracker, cache, keys, planner, finished);
+        if (tracker == null)
+            job.complete(null);
+        return job;
+    }
+
+    /**
+     * Resolves the jobs' trees with every ready node in flight at once, so
+     * independent subtrees such as the two products of (A*B)+(C*D) are
+     * computed concurrently. The calling thread computes one ready node itself
+     * and hands the others to the executor as node tasks; their row tasks
+     * share the pool (see {@link TiredExecutor#submitRanges}). As soon as a
+     * node finishes, its parent is launched if its other children are done
+     * too, as tracked by each job's {@link DependencyTracker}. Ready nodes of
+     * several jobs are submitted in turns, one unit of each job at a time, so
+     * no job waits behind all of another's nodes.
+     * The first failing node fails its job; nodes of that job still running
+     * are left to finish and no new ones are started. Every job reports to
+     * {@code finished}.
+     * Must not be called from a task of this engine's own executor.
+     */
+    private void drive(List<Job> jobs, BlockingQueue<NodeResult> finished) {
+        int active = 0;
+        for (Job job : jobs) {
+            if (!job.done)
+                active++;
+        }
+        try {
+            while (active > 0) {
+                for (Job job : jobs) {
+                    if (job.done)
+                        continue;
+                    List<ComputationNode> ready = job.tracker.drainReady();
+                    job.running += ready.size();
+                    job.stats.nodesInFlight(job.running);
+                    job.pending.addAll(job.planner != null ? job.planner.group(ready, job.kernels)
+                            : singletons(ready));
+                }
+                List<Job> owners = new ArrayList<>();
+                List<List<ComputationNode>> units = new ArrayList<>();
+                for (boolean more = true; more;) {
+                    more = false;
+                    for (Job job : jobs) {
+                        List<ComputationNode> unit = job.pending.poll();
+                        if (unit != null) {
+                            owners.add(job);
+                            units.add(unit);
+                            more = true;
+                        }
+                    }
+                }
+                // the last unit runs right here, saving a handoff when there is only one
+                for (int i = 0; i < units.size() - 1; i++) {
+                    Job job = owners.get(i);
+                    List<ComputationNode> unit = units.get(i);
+                    executor.submit(() -> computeAll(unit, job), priority, jobDeadline(job.stats));
+                }
+                if (!units.isEmpty()) {
+                    computeAll(units.get(units.size() - 1), owners.get(units.size() - 1));
+                }
+                NodeResult result = finished.take();
+                Job job = result.job;
+                job.running--;
+                if (job.done)
+                    continue; // a node of a job that failed already
+                if (result.failure != null || result.node == job.root) {
+                    job.complete(result.failure);
+                    active--;
+                } else {
+                    job.tracker.resolved(result.node);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for nodes to finish", e);
         } finally {
-            try {
-                executor.shutdown();
-            } catch (InterruptedException e) {
-                throw new RuntimeException("[TiredExecutor] shutdown interrupted: " + e.getMessage());
+            for (Job job : jobs) {
+                job.abandoned.set(true);
+            }
+        }
+    }
+
+    /**
+     * Looks up the nodes that would be computed, top down, and resolves every
+     * one the cache has a result for; nothing below a hit is looked up. Nodes
+     * fused into a kernel are never cached on their own, so only the kernel's
+     * top node is looked up.
+     */
+    private static void resolveFromCache(ComputationNode root, Map<ComputationNode, ElementwiseKernel> kernels,
+            ResultCache cache, Map<ComputationNode, String> keys, JobStats stats) {
+        Set<ComputationNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        visited.add(root);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.pop();
+            double[][] cached = cache.get(keys.get(node));
+            if (cached != null) {
+                node.resolve(cached);
+                stats.nodeFromCache();
+                continue;
+            }
+            ElementwiseKernel kernel = kernels.get(node);
+            for (ComputationNode operand : kernel != null ? kernel.getInputs() : node.getChildren()) {
+                if (operand.getNodeType() != ComputationNodeType.MATRIX && visited.add(operand))
+                    stack.push(operand);
             }
         }
     }
 
+    private static List<List<ComputationNode>> singletons(List<ComputationNode> nodes) {
+        List<List<ComputationNode>> units = new ArrayList<>(nodes.size());
+        for (ComputationNode node : nodes) {
+            units.add(List.of(node));
+        }
+        return units;
+    }
+
+    private void computeAll(List<ComputationNode> unit, Job job) {
+        for (ComputationNode node : unit) {
+            computeNode(node, job);
+        }
+    }
+
+    private void computeNode(ComputationNode node, Job job) {
+        Throwable failure = null;
+        try {
+            if (job.abandoned.get()) {
+                // the job failed already
+            } else {
+                ElementwiseKernel kernel = job.kernels.get(node);
+                NodePlanner.Strategy strategy = job.planner == null ? NodePlanner.Strategy.ROWS
+                        : job.planner.strategyOf(node, kernel);
+                boolean inline = strategy == NodePlanner.Strategy.INLINE;
+                if (kernel != null)
+                    computeFused(node, kernel, job.stats, job.owned, inline);
+                else if (strategy == NodePlanner.Strategy.TILES)
+                    multiplyTiled(node, job.planner, job.stats);
+                else
+                    loadAndCompute(node, job.stats, job.owned, inline);
+            }
+            if (job.cache != null && !job.abandoned.get())
+                cacheResult(node, job.cache, job.keys.get(node));
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        job.finished.add(new NodeResult(job, node, failure));
+    }
+
+    /**
+     * Stores a copy of a computed node's result. Runs before the node is
+     * reported as finished, so no parent consumes the result in the meantime.
+     */
+    private static void cacheResult(ComputationNode node, ResultCache cache, String key) {
+        SharedMatrix resident = node.getSharedMatrix();
+        if (resident != null)
+            cache.putOwned(key, resident.readRowMajor());
+        else
+            cache.put(key, node.getMatrix());
+    }
+
+    /**
+     * State of one job, shared by its driver thread and its node tasks.
+     */
+    private static final class Job {
+        final ComputationNode root;
+        final JobStats stats;
+        final Map<ComputationNode, ElementwiseKernel> kernels; // by the top node of each fused subtree
+        final DependencyTracker tracker; // null if the root is resolved already
+        final Predicate<ComputationNode> owned; // may a node's result be consumed in place
+        final ResultCache cache; // null = no caching
+        final Map<ComputationNode, String> keys; // subtree digests, only when caching
+        final NodePlanner planner; // null = every node is split by rows
+        final BlockingQueue<NodeResult> finished; // may be shared by the jobs of a batch
+        final AtomicBoolean abandoned = new AtomicBoolean(false);
+        // used by the driver thread only
+        final Deque<List<ComputationNode>> pending = new ArrayDeque<>(); // ready units not launched yet
+        int running = 0; // nodes launched and not reported yet
+        boolean done = false;
+        Throwable failure = null; // null = not failed
+
+        Job(ComputationNode root, JobStats stats, Map<ComputationNode, ElementwiseKernel> kernels,
+                DependencyTracker tracker, ResultCache cache, Map<ComputationNode, String> keys,
+                NodePlanner planner, BlockingQueue<NodeResult> finished) {
+            this.root = root;
+            this.stats = stats;
+            this.kernels = kernels;
+            this.tracker = tracker;
+            this.owned = tracker != null ? tracker::hasSingleUser : node -> false;
+            this.cache = cache;
+            this.keys = keys;
+            this.planner = planner;
+            this.finished = finished;
+        }
+
+        void complete(Throwable failure) {
+            this.failure = failure;
+            done = true;
+            if (failure != null)
+                abandoned.set(true);
+            stats.finish();
+        }
+    }
+
+    /**
+     * A node that finished computing, the job it belongs to, and what it
+     * failed with (null on success).
+     */
+    private static final class NodeResult {
+        final Job job;
+        final ComputationNode node;
+        final Throwable failure;
+
+        NodeResult(Job job, ComputationNode node, Throwable failure) {
+            this.job = job;
+            this.node = node;
+            this.failure = failure;
+        }
+    }
+
     public void loadAndCompute(ComputationNode node) {
+        loadAndCompute(node, new JobStats());
+    }
+
+    public void loadAndCompute(ComputationNode node, JobStats stats) {
+        loadAndCompute(node, stats, child -> false, false);
+    }
+
+    /**
+     * Computes {@code node} from its operands. A child that was computed by
+     * this engine keeps its result in a SharedMatrix (see
+     * {@link ComputationNode#resolve(SharedMatrix)}), which is used in place
+     * when its layout fits: always as the right operand, since that one is
+     * only read, and as the left operand, which the node overwrites with its
+     * result, only if {@code owned} says no other node refers to the child.
+     * A square A * A may thus compute in A's buffer, reading a copy of A in
+     * the other layout, as the squares of a POWER node do.
+     * Otherwise the operand is a copy, converted to the layout the operation
+     * needs. The node's result stays resident as well.
+     * The row tasks run without locks (see {@link AccessMode}): the left
+     * operand is OWNED, each row by the one task that writes it, and the right
+     * operand is FROZEN. A result read by several nodes is frozen when it is
+     * resolved, so it never changes mode while another node reads it.
+     * An {@code inline} node runs its row tasks on the calling thread, without
+     * the executor (so without the node timeout and deadline either).
+     */
+    private void loadAndCompute(ComputationNode node, JobStats stats, Predicate<ComputationNode> owned,
+            boolean inline) {
         // load operand matrices, and create compute tasks & submit tasks to executor
         if (node == null) {
             throw new IllegalArgumentException("node to compute should not be null");
@@ -48,42 +456,191 @@ public class LinearAlgebraEngine {
         if (node.getChildren() == null || children.isEmpty()) {
             throw new IllegalArgumentException("can't compute, node have no children");
         }
+        // operands are local to this call (or owned by it), so concurrent runs never share them
+        SharedMatrix leftMatrix;
+        SharedMatrix rightMatrix = null;
         int numChildren = children.size();
         List<Runnable> tasks = null;
+        double rowCost; // work of one row task, used to measure worker throughput
         ComputationNodeType type = node.getNodeType();
         if (type == ComputationNodeType.ADD) {
             if (numChildren < 2)
                 throw new IllegalArgumentException("cannot ADD if there is less than 2 matrices");
-            leftMatrix.loadRowMajor(children.get(0).getMatrix());
-            rightMatrix.loadRowMajor(children.get(1).getMatrix());
-            tasks = createAddTasks();
+            if (numChildren > 2) {
+                // k-way sum: each row task reads the k operand rows and writes one output row
+                computeFused(node, ElementwiseKernel.sumOf(node), stats, owned, inline);
+                return;
+            }
+            leftMatrix = leftOperand(children.get(0), VectorOrientation.ROW_MAJOR, owned);
+            rightMatrix = rightOperand(children.get(1), VectorOrientation.ROW_MAJOR, leftMatrix);
+            tasks = createAddTasks(leftMatrix, rightMatrix);
+            rowCost = leftMatrix.get(0).length();
+        } else if (type == ComputationNodeType.SUBTRACT) {
+            if (numChildren != 2)
+                throw new IllegalArgumentException("cannot SUBTRACT if there are not exactly 2 matrices");
+            leftMatrix = leftOperand(children.get(0), VectorOrientation.ROW_MAJOR, owned);
+            rightMatrix = rightOperand(children.get(1), VectorOrientation.ROW_MAJOR, leftMatrix);
+            tasks = createSubtractTasks(leftMatrix, rightMatrix);
+            rowCost = leftMatrix.get(0).length();
         } else if (type == ComputationNodeType.MULTIPLY) {
             if (numChildren < 2)
                 throw new IllegalArgumentException("cannot MULTIPLY if there is less than 2 matrices");
-            leftMatrix.loadRowMajor(children.get(0).getMatrix());
-            rightMatrix.loadColumnMajor(children.get(1).getMatrix());
-            tasks = createMultiplyTasks();
+            leftMatrix = leftOperand(children.get(0), VectorOrientation.ROW_MAJOR, owned);
+            rightMatrix = rightOperand(children.get(1), VectorOrientation.COLUMN_MAJOR, leftMatrix);
+            tasks = createMultiplyTasks(leftMatrix, rightMatrix);
+            rowCost = 2.0 * leftMatrix.get(0).length() * rightMatrix.length();
         } else if (type == ComputationNodeType.NEGATE) {
             if (numChildren != 1)
                 throw new IllegalArgumentException("cannot NEGATE if there is 0/2 matrices");
-            leftMatrix.loadRowMajor(children.get(0).getMatrix());
-            tasks = createNegateTasks();
+            leftMatrix = leftOperand(children.get(0), VectorOrientation.ROW_MAJOR, owned);
+            tasks = createNegateTasks(leftMatrix);
+            rowCost = leftMatrix.get(0).length();
+        } else if (type == ComputationNodeType.POWER) {
+            throw new IllegalArgumentException("cannot compute POWER directly, the tree must be nested first");
         } else { // (type==ComputationNodeType.TRANSPOSE)
             if (numChildren != 1)
                 throw new IllegalArgumentException("cannot TRANSPOSE if there is 0/2 matrices");
-            leftMatrix.loadRowMajor(children.get(0).getMatrix());
-            tasks = createTransposeTasks();
+            leftMatrix = leftOperand(children.get(0), VectorOrientation.ROW_MAJOR, owned);
+            tasks = createTransposeTasks(leftMatrix);
+            rowCost = 1.0; // only flips the row's orientation
         }
 
-        executor.submitAll(tasks);
+        // no row task locks anything: each one owns the row it writes, and the
+        // right operand is frozen since nobody writes it
+        leftMatrix.setAccessMode(AccessMode.OWNED);
+        if (rightMatrix != null && rightMatrix.getAccessMode() != AccessMode.FROZEN)
+            rightMatrix.setAccessMode(AccessMode.FROZEN);
+
+        // fails fast: the first failing task (or the node timeout) cancels the
+        // node's remaining tasks and the exception surfaces here
+        runRows(stats.track(tasks), rowCost, stats, inline);
 
-        // if (type==ComputationNodeType.TRANSPOSE) // todo: check the transpose
-        // leftMatrix.loadRowMajor(leftMatrix.readRowMajor());
+        // a result that several nodes read is frozen before anyone can see it;
+        // one with a single user stays writable, so that user may consume it in place
+        leftMatrix.setAccessMode(owned.test(node) ? AccessMode.LOCKED : AccessMode.FROZEN);
+        // a transposed result stays COLUMN_MAJOR; whoever needs rows converts it
+        node.resolve(leftMatrix);
+        stats.nodeResolved();
+    }
+
+    /**
+     * The operand the node writes its result into: the child's resident
+     * result if nothing else uses it and it is in the given layout, a copy
+     * otherwise.
+     */
+    private static SharedMatrix leftOperand(ComputationNode child, VectorOrientation orientation,
+            Predicate<ComputationNode> owned) {
+        SharedMatrix resident = child.getSharedMatrix();
+        if (resident != null && hasOrientation(resident, orientation) && owned.test(child)
+                && resident.getAccessMode() != AccessMode.FROZEN)
+            return resident;
+        return copyOf(child, orientation);
+    }
+
+    /**
+     * A read-only operand: the child's resident result if it is in the given
+     * layout, a copy otherwise.
+     */
+    private static SharedMatrix rightOperand(ComputationNode child, VectorOrientation orientation) {
+        SharedMatrix resident = child.getSharedMatrix();
+        if (resident != null && hasOrientation(resident, orientation))
+            return resident;
+        return copyOf(child, orientation);
+    }
+
+    /**
+     * A read-only operand next to the {@code written} one, which is never
+     * returned: A + A may consume A's result as its left operand, but then
+     * reads a copy of it on the right.
+     */
+    private static SharedMatrix rightOperand(ComputationNode child, VectorOrientation orientation,
+            SharedMatrix written) {
+        SharedMatrix operand = rightOperand(child, orientation);
+        return operand == written ? copyOf(child, orientation) : operand;
+    }
 
-        node.resolve(leftMatrix.readRowMajor());
+    private static SharedMatrix copyOf(ComputationNode child, VectorOrientation orientation) {
+        SharedMatrix resident = child.getSharedMatrix();
+        double[][] rows = resident != null ? resident.readRowMajor() : child.getMatrix();
+        SharedMatrix copy = new SharedMatrix();
+        if (orientation == VectorOrientation.ROW_MAJOR)
+            copy.loadRowMajor(rows);
+        else
+            copy.loadColumnMajor(rows);
+        return copy;
     }
 
-    public List<Runnable> createAddTasks() {
+    private static boolean hasOrientation(SharedMatrix matrix, VectorOrientation orientation) {
+        return matrix.length() > 0 && matrix.get(0).length() > 0 && matrix.getOrientation() == orientation;
+    }
+
+    /**
+     * Resolves the top node of a fused elementwise subtree in one parallel
+     * pass over the kernel's inputs; every node of the subtree counts as
+     * resolved. The output stays resident, with the same access modes as a
+     * {@link #loadAndCompute} result: OWNED by its row tasks while they write
+     * it, then writable only if a single node uses it.
+     */
+    private void computeFused(ComputationNode node, ElementwiseKernel kernel, JobStats stats,
+            Predicate<ComputationNode> owned, boolean inline) {
+        ElementwiseKernel.Operand[] inputs = kernel.readInputs();
+        SharedMatrix output = kernel.allocateOutput(inputs);
+        // measured before the rows become OWNED, or this thread would own row 0
+        double rowCost = (double) output.get(0).length() * kernel.getTermCount();
+        output.setAccessMode(AccessMode.OWNED);
+        runRows(stats.track(kernel.createTasks(inputs, output)), rowCost, stats, inline);
+
+        output.setAccessMode(owned.test(node) ? AccessMode.LOCKED : AccessMode.FROZEN);
+        node.resolve(output);
+        stats.nodesFused(kernel.getFusedNodes());
+    }
+
+    /**
+     * Computes a product with few rows as a grid of row x column tiles, so
+     * that it keeps every worker busy; each tile task writes its own cells of
+     * a new output matrix, and both operands are only read.
+     */
+    private void multiplyTiled(ComputationNode node, NodePlanner planner, JobStats stats) {
+        List<ComputationNode> children = node.getChildren();
+        if (children.size() < 2)
+            throw new IllegalArgumentException("cannot MULTIPLY if there is less than 2 matrices");
+        SharedMatrix leftMatrix = rightOperand(children.get(0), VectorOrientation.ROW_MAJOR);
+        SharedMatrix rightMatrix = rightOperand(children.get(1), VectorOrientation.COLUMN_MAJOR);
+        double[][] output = new double[leftMatrix.length()][rightMatrix.length()];
+        int columnBlocks = planner.columnBlocks(leftMatrix.length(), rightMatrix.length());
+        List<Runnable> tasks = createTiledMultiplyTasks(leftMatrix, rightMatrix, output, columnBlocks);
+        for (SharedMatrix operand : List.of(leftMatrix, rightMatrix)) {
+            if (operand.getAccessMode() != AccessMode.FROZEN)
+                operand.setAccessMode(AccessMode.FROZEN);
+        }
+        double tileCost = 2.0 * leftMatrix.get(0).length() * rightMatrix.length() / columnBlocks;
+        runRows(stats.track(tasks), tileCost, stats, false);
+
+        node.resolve(output);
+        stats.nodeResolved();
+        stats.nodeTiled();
+    }
+
+    /**
+     * Runs a node's tasks as one batch on the executor, or one after another
+     * on the calling thread if the node is too small to be worth a dispatch.
+     */
+    private void runRows(List<Runnable> rowTasks, double rowCost, JobStats stats, boolean inline) {
+        if (inline) {
+            for (Runnable task : rowTasks) {
+                task.run();
+            }
+            stats.nodeInline();
+            return;
+        }
+        executor.submitRanges(rowTasks.size(), rowCost, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                rowTasks.get(i).run();
+            }
+        }, chunkPolicy, priority, jobDeadline(stats), nodeTimeoutMillis);
+    }
+
+    public List<Runnable> createAddTasks(SharedMatrix leftMatrix, SharedMatrix rightMatrix) {
         // return tasks that perform row-wise addition
         if (leftMatrix == null || rightMatrix == null)
             throw new IllegalArgumentException("cannot ADD null matrices");
@@ -106,7 +663,29 @@ public class LinearAlgebraEngine {
         return List.of(tasks);
     }
 
-    public List<Runnable> createMultiplyTasks() {
+    public List<Runnable> createSubtractTasks(SharedMatrix leftMatrix, SharedMatrix rightMatrix) {
+        // return tasks that perform row-wise subtraction (left - right)
+        if (leftMatrix == null || rightMatrix == null)
+            throw new IllegalArgumentException("cannot SUBTRACT null matrices");
+        if (leftMatrix.length() == 0 || rightMatrix.length() == 0 ||
+                leftMatrix.get(0).length() == 0 || rightMatrix.get(0).length() == 0)
+            throw new IllegalArgumentException("cannot SUBTRACT empty matrices");
+        if (leftMatrix.getOrientation() != VectorOrientation.ROW_MAJOR ||
+                rightMatrix.getOrientation() != VectorOrientation.ROW_MAJOR)
+            throw new IllegalArgumentException("cannot SUBTRACT, M1 or M2 is not ROW_MAJOR");
+        if (leftMatrix.length() != rightMatrix.length() ||
+                leftMatrix.get(0).length() != rightMatrix.get(0).length())
+            throw new IllegalArgumentException("cannot SUBTRACT, mismatch in matrices sizes");
+
+        Runnable[] tasks = new Runnable[leftMatrix.length()];
+        for (int i = 0; i < tasks.length; i++) {
+            final int row = i;
+            tasks[i] = () -> leftMatrix.get(row).subtract(rightMatrix.get(row));
+        }
+        return List.of(tasks);
+    }
+
+    public List<Runnable> createMultiplyTasks(SharedMatrix leftMatrix, SharedMatrix rightMatrix) {
         // return tasks that perform row × matrix multiplication
         if (leftMatrix == null || rightMatrix == null)
             throw new IllegalArgumentException("cannot MULTIPLY, the matrices are null");
@@ -130,7 +709,44 @@ public class LinearAlgebraEngine {
 
     }
 
-    public List<Runnable> createNegateTasks() {
+    public List<Runnable> createTiledMultiplyTasks(SharedMatrix leftMatrix, SharedMatrix rightMatrix,
+            double[][] output, int columnBlocks) {
+        // return tasks that each compute one row x column-block tile of the product into output
+        if (leftMatrix == null || rightMatrix == null || output == null)
+            throw new IllegalArgumentException("cannot MULTIPLY, the matrices are null");
+        if (leftMatrix.length() == 0 || rightMatrix.length() == 0 ||
+                leftMatrix.get(0).length() == 0 || rightMatrix.get(0).length() == 0)
+            throw new IllegalArgumentException("cannot MULTIPLY, the matrices are empty");
+        if (leftMatrix.getOrientation() != VectorOrientation.ROW_MAJOR)
+            throw new IllegalArgumentException("cannot MULTIPLY, M1 is not ROW_MAJOR");
+        if (rightMatrix.getOrientation() != VectorOrientation.COLUMN_MAJOR)
+            throw new IllegalArgumentException("cannot MULTIPLY, M2 is not COLUMN_MAJOR");
+        if (leftMatrix.get(0).length() != rightMatrix.get(0).length())
+            throw new IllegalArgumentException("cannot MULTIPLY, mismatch in matrices sizes");
+        if (output.length != leftMatrix.length() || output[0].length != rightMatrix.length())
+            throw new IllegalArgumentException("cannot MULTIPLY, output has the wrong size");
+        if (columnBlocks < 1 || columnBlocks > rightMatrix.length())
+            throw new IllegalArgumentException("invalid number of column blocks");
+
+        int columns = rightMatrix.length();
+        List<Runnable> tasks = new ArrayList<>(leftMatrix.length() * columnBlocks);
+        for (int i = 0; i < leftMatrix.length(); i++) {
+            final int row = i;
+            for (int b = 0; b < columnBlocks; b++) {
+                final int from = (int) ((long) columns * b / columnBlocks);
+                final int to = (int) ((long) columns * (b + 1) / columnBlocks);
+                tasks.add(() -> {
+                    SharedVector left = leftMatrix.get(row);
+                    for (int j = from; j < to; j++) {
+                        output[row][j] = left.dot(rightMatrix.get(j));
+                    }
+                });
+            }
+        }
+        return List.copyOf(tasks);
+    }
+
+    public List<Runnable> createNegateTasks(SharedMatrix leftMatrix) {
         // return tasks that negate rows
         if (leftMatrix == null)
             throw new IllegalArgumentException("cannot NEGATE, the matrix is null");
@@ -150,7 +766,7 @@ public class LinearAlgebraEngine {
     }
 
     // todo: check the transpose
-    public List<Runnable> createTransposeTasks() {
+    public List<Runnable> createTransposeTasks(SharedMatrix leftMatrix) {
         // return tasks that transpose rows
         if (leftMatrix == null)
             throw new IllegalArgumentException("cannot TRANSPOSE, the matrix is null");
@@ -169,9 +785,102 @@ public class LinearAlgebraEngine {
 
     }
 
+    /**
+     * Limits how long the tasks of a single node may take; a node that runs
+     * longer is cancelled and the job fails with a CancellationException.
+     * 0 disables the limit.
+     */
+    public void setNodeTimeout(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("node timeout cannot be negative");
+        this.nodeTimeoutMillis = millis;
+    }
+
+    /**
+     * Chooses how each node's rows are split into tasks: one task per row
+     * (EQUAL, the default) or chunks sized by the measured throughput of each
+     * worker (THROUGHPUT). The worker report compares the two.
+     */
+    public void setChunkPolicy(ChunkPolicy chunkPolicy) {
+        if (chunkPolicy == null)
+            throw new IllegalArgumentException("chunk policy cannot be null");
+        this.chunkPolicy = chunkPolicy;
+    }
+
+    /**
+     * Sets the machine constants used to decide, per node, whether to run it
+     * inline, split it by rows or into tiles (see {@link NodePlanner}), e.g.
+     * the ones {@link CostModel#calibrated()} measures. Planning is opt-in,
+     * since calibrating takes a while and starts a pool of its own: by
+     * default (null) every node is split by rows.
+     */
+    public void setCostModel(CostModel costModel) {
+        this.costModel = costModel;
+    }
+
+    public CostModel getCostModel() {
+        return costModel;
+    }
+
+    /**
+     * Reuses subtree results across jobs through {@code cache}, which may be
+     * shared with other engines; null turns caching off. Takes effect for
+     * jobs started afterwards.
+     */
+    public void setResultCache(ResultCache cache) {
+        this.resultCache = cache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Chooses which idle worker runs each task of this engine's executor, see
+     * {@link SchedulingPolicy#forName}. With a shared executor the policy
+     * applies to every engine using it.
+     */
+    public void setSchedulingPolicy(SchedulingPolicy policy) {
+        executor.setSchedulingPolicy(policy);
+    }
+
+    private long jobDeadline(JobStats stats) {
+        if (deadlineMillis == 0)
+            return TiredExecutor.NO_DEADLINE;
+        long start = stats.getStartTime() != 0 ? stats.getStartTime() : System.nanoTime();
+        return start + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    }
+
     public String getWorkerReport() {
         // return summary of worker activity
         return executor.getWorkerReport();
     }
 
+    /**
+     * Exposes the executor's live metrics as a platform MBean, see
+     * {@link TiredExecutor#registerMBean(String)}.
+     */
+    public void registerMBean(String name) {
+        executor.registerMBean(name);
+    }
+
+    /**
+     * Shuts down the executor if this engine owns it. Engines built on a shared
+     * executor leave it running.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            shutdownExecutor();
+        }
+    }
+
+    private void shutdownExecutor() {
+        try {
+            executor.shutdown();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("[TiredExecutor] shutdown interrupted: " + e.getMessage());
+        }
+    }
+
 }
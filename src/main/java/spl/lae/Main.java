@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.text.ParseException;
 
 import parser.*;
+import scheduling.SchedulingPolicy;
 
 public class Main {
     public static void main(String[] args) throws IOException {
@@ -16,17 +17,42 @@ public class Main {
         String inputPath = args[1];
         String outputPath = args[2];
         LinearAlgebraEngine lae = new LinearAlgebraEngine(numThreads);
+        // -Dlae.jmx=true exposes the executor metrics to jconsole while the job runs
+        if (Boolean.getBoolean("lae.jmx")) {
+            lae.registerMBean("lae");
+        }
+        // -Dlae.policy=<name> picks the scheduling policy, e.g. round-robin or power-of-two
+        String policy = System.getProperty("lae.policy");
+        if (policy != null) {
+            lae.setSchedulingPolicy(SchedulingPolicy.forName(policy));
+        }
+        // -Dlae.costModel=<file> plans each node's parallelism from calibrated (and cached) machine constants
+        if (System.getProperty("lae.costModel") != null) {
+            lae.setCostModel(CostModel.calibrated());
+        }
         InputParser inputParser = new InputParser();
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+        CommonSubexpressionEliminator cse = new CommonSubexpressionEliminator();
+        JobStats stats = new JobStats();
         try {
-            ComputationNode root = inputParser.parse(inputPath);
-            ComputationNode res = lae.run(root);
+            // cancelling and fusable operations are rewritten away, then repeated
+            // subexpressions and matrix literals are shared so they are computed once
+            ComputationNode root = cse.eliminate(rewriter.rewrite(inputParser.parse(inputPath)));
+            ComputationNode res = lae.run(root, stats);
             OutputWriter.write(res.getMatrix(), outputPath);
         } catch (ParseException e) {
             throw new RuntimeException(e);
         } catch (RuntimeException e) {
             OutputWriter.write("Error: " + e.getMessage(), outputPath);
         } finally {
+            System.out.println(rewriter);
+            System.out.println(cse);
+            System.out.println(stats);
+            if (lae.getCostModel() != null) {
+                System.out.println(lae.getCostModel());
+            }
             System.out.println(lae.getWorkerReport());
+            lae.close();
         }
 
     }
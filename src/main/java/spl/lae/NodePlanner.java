@@ -0,0 +1,159 @@
+package spl.lae;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import memory.SharedMatrix;
+import memory.VectorOrientation;
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+/**
+ * Decides, from a {@link CostModel}, how much parallelism each ready node
+ * gets. The node's work is estimated from its operands' shapes: flops and
+ * bytes moved. A node whose parallel speedup could not even pay for handing
+ * its rows to the executor runs inline, on whichever thread computes it, and
+ * several such nodes that are ready together share one task instead of one
+ * each. Other nodes are split by rows, except a product with fewer rows than
+ * there are workers, which is split into row x column tiles so every worker
+ * gets a share.
+ */
+final class NodePlanner {
+
+    /** How one node is run. */
+    enum Strategy {
+        INLINE,
+        ROWS,
+        TILES
+    }
+
+    private static final double INLINE_MARGIN = 2.0; // the parallel gain must exceed this many dispatches
+    private static final double BATCH_DISPATCHES = 4.0; // tiny nodes are grouped until their work reaches this
+    private static final int TILES_PER_WORKER = 2;
+
+    private final CostModel model;
+    private final int workers;
+
+    NodePlanner(CostModel model, int workers) {
+        this.model = model;
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Groups ready nodes into units of work, each run by one task: every
+     * node that is worth parallelizing on its own, and the tiny ones in
+     * batches big enough to be worth a dispatch.
+     */
+    List<List<ComputationNode>> group(List<ComputationNode> ready, Map<ComputationNode, ElementwiseKernel> kernels) {
+        List<List<ComputationNode>> units = new ArrayList<>();
+        List<ComputationNode> batch = new ArrayList<>();
+        double batchNanos = 0;
+        for (ComputationNode node : ready) {
+            ElementwiseKernel kernel = kernels.get(node);
+            if (strategyOf(node, kernel) != Strategy.INLINE) {
+                units.add(List.of(node));
+                continue;
+            }
+            batch.add(node);
+            batchNanos += estimate(node, kernel).nanos;
+            if (batchNanos >= BATCH_DISPATCHES * model.getDispatchNanos()) {
+                units.add(batch);
+                batch = new ArrayList<>();
+                batchNanos = 0;
+            }
+        }
+        if (!batch.isEmpty())
+            units.add(batch);
+        return units;
+    }
+
+    /**
+     * How to run {@code node}, whose operands must all be resolved;
+     * {@code kernel} is its fused kernel, if any.
+     */
+    Strategy strategyOf(ComputationNode node, ElementwiseKernel kernel) {
+        Estimate estimate = estimate(node, kernel);
+        int parallelism = Math.min(workers, Math.max(1, estimate.rows));
+        double gain = estimate.nanos * (1.0 - 1.0 / parallelism);
+        if (gain < INLINE_MARGIN * model.getDispatchNanos())
+            return Strategy.INLINE;
+        if (kernel == null && node.getNodeType() == ComputationNodeType.MULTIPLY
+                && estimate.rows < workers && estimate.cols > 1)
+            return Strategy.TILES;
+        return Strategy.ROWS;
+    }
+
+    /**
+     * Number of column blocks a tiled product with the given output shape is
+     * split into, giving each worker about {@value #TILES_PER_WORKER} tiles.
+     */
+    int columnBlocks(int rows, int cols) {
+        int blocks = (TILES_PER_WORKER * workers + rows - 1) / rows;
+        return Math.max(1, Math.min(cols, blocks));
+    }
+
+    private Estimate estimate(ComputationNode node, ElementwiseKernel kernel) {
+        List<ComputationNode> children = node.getChildren();
+        if (kernel != null) {
+            int[] shape = kernel.outputShape();
+            double elements = (double) shape[0] * shape[1];
+            int terms = kernel.getTermCount();
+            return new Estimate(model.estimateNanos(terms * elements, (terms + 1) * elements * Double.BYTES),
+                    shape[0], shape[1]);
+        }
+        if (children == null || children.isEmpty())
+            return new Estimate(0, 0, 0);
+        int[] first = shapeOf(children.get(0));
+        double elements = (double) first[0] * first[1];
+        switch (node.getNodeType()) {
+            case MULTIPLY: {
+                if (children.size() < 2)
+                    return new Estimate(0, 0, 0);
+                int[] second = shapeOf(children.get(1));
+                double flops = 2.0 * first[0] * first[1] * second[1];
+                double bytes = (elements + (double) second[0] * second[1] + (double) first[0] * second[1])
+                        * Double.BYTES;
+                return new Estimate(model.estimateNanos(flops, bytes), first[0], second[1]);
+            }
+            case TRANSPOSE:
+                return new Estimate(model.estimateNanos(0, 2 * elements * Double.BYTES), first[0], first[1]);
+            case NEGATE:
+                return new Estimate(model.estimateNanos(elements, 2 * elements * Double.BYTES), first[0], first[1]);
+            default: // ADD, SUBTRACT
+                return new Estimate(model.estimateNanos(elements, 3 * elements * Double.BYTES), first[0], first[1]);
+        }
+    }
+
+    /**
+     * Rows x columns of a resolved operand, {0, 0} if it is empty.
+     */
+    static int[] shapeOf(ComputationNode operand) {
+        SharedMatrix resident = operand.getSharedMatrix();
+        if (resident != null) {
+            if (resident.length() == 0 || resident.get(0).length() == 0)
+                return new int[] { 0, 0 };
+            int vectors = resident.length();
+            int length = resident.get(0).length();
+            return resident.getOrientation() == VectorOrientation.ROW_MAJOR
+                    ? new int[] { vectors, length } : new int[] { length, vectors };
+        }
+        double[][] matrix = operand.getMatrix();
+        return matrix.length == 0 ? new int[] { 0, 0 } : new int[] { matrix.length, matrix[0].length };
+    }
+
+    /**
+     * Estimated time of a node, and the shape of its output.
+     */
+    private static final class Estimate {
+        final double nanos;
+        final int rows;
+        final int cols;
+
+        Estimate(double nanos, int rows, int cols) {
+            this.nanos = nanos;
+            this.rows = rows;
+            this.cols = cols;
+        }
+    }
+}
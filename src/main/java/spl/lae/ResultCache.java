@@ -0,0 +1,529 @@
+package spl.lae;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+/**
+ * Results of computed subtrees, kept across jobs so that a subexpression
+ * that reappears in a later job (say, the same weights multiplied by a new
+ * input) is not computed again. A subtree is identified by a SHA-256 digest
+ * of its operator, its operands' digests and, for matrix literals, their
+ * shape and contents, so equal subtrees of different jobs share an entry.
+ * The in-memory tier holds at most {@code maxBytes} of matrices and evicts by
+ * the chosen {@link EvictionPolicy}. With a directory, evicted entries move
+ * to a second tier on disk, itself bounded and evicted least recently used;
+ * a disk hit is moved back into memory. Files are read and written outside
+ * the cache's lock, so a slow disk never blocks lookups of other keys.
+ * Thread-safe: any number of engines and concurrent jobs may share one cache.
+ */
+public class ResultCache {
+
+    private final long maxBytes;
+    private final EvictionPolicy policy;
+    private final Path diskDir; // null = no disk tier
+    private final long maxDiskBytes;
+
+    // guarded by this; access order, so iteration starts at the least recently used
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true); // key -> bytes
+    private long bytesInMemory = 0; // guarded by this
+    private long bytesOnDisk = 0; // guarded by this
+
+    private long hits = 0; // guarded by this
+    private long diskHits = 0; // guarded by this; included in hits
+    private long misses = 0; // guarded by this
+    private long bytesSaved = 0; // guarded by this
+    private long evictions = 0; // guarded by this
+    private long diskFailures = 0; // guarded by this
+
+    // guarded by this; file I/O runs outside the lock, on keys claimed here first
+    private final Set<String> busy = new HashSet<>(); // keys whose file is being read, written or deleted
+    private final Map<String, Entry> spilling = new HashMap<>(); // evicted, being written to disk
+
+    /**
+     * Creates a memory-only cache holding at most {@code maxBytes} of results.
+     */
+    public ResultCache(long maxBytes, EvictionPolicy policy) {
+        this(maxBytes, policy, null, 0);
+    }
+
+    /**
+     * Creates a cache whose evicted results are written to files in
+     * {@code diskDir}, up to {@code maxDiskBytes}.
+     */
+    public ResultCache(long maxBytes, EvictionPolicy policy, Path diskDir, long maxDiskBytes) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("cache size must be positive");
+        if (policy == null)
+            throw new IllegalArgumentException("eviction policy cannot be null");
+        if (diskDir != null && maxDiskBytes <= 0)
+            throw new IllegalArgumentException("disk tier size must be positive");
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.diskDir = diskDir;
+        this.maxDiskBytes = maxDiskBytes;
+        if (diskDir != null) {
+            try {
+                Files.createDirectories(diskDir);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("cannot create cache directory " + diskDir, e);
+            }
+        }
+    }
+
+    /**
+     * Digests of every node under {@code root}, matrix literals included,
+     * computed children first with an explicit stack. A node shared by
+     * several parents is digested once.
+     */
+    static Map<ComputationNode, String> keysOf(ComputationNode root) {
+        Map<ComputationNode, String> keys = new IdentityHashMap<>();
+        Set<ComputationNode> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<ComputationNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.peek();
+            if (keys.containsKey(node)) {
+                stack.pop();
+            } else if (node.getNodeType() == ComputationNodeType.MATRIX || !expanded.add(node)) {
+                stack.pop();
+                keys.put(node, digest(node, keys));
+            } else {
+                for (ComputationNode child : node.getChildren()) {
+                    if (!keys.containsKey(child))
+                        stack.push(child);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String digest(ComputationNode node, Map<ComputationNode, String> keys) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        sha.update((byte) node.getNodeType().ordinal());
+        if (node.getNodeType() == ComputationNodeType.MATRIX) {
+            double[][] matrix = node.getMatrix();
+            byte[] buffer = new byte[8];
+            update(sha, buffer, matrix.length);
+            for (double[] row : matrix) {
+                update(sha, buffer, row.length);
+                for (double value : row) {
+                    update(sha, buffer, Double.doubleToLongBits(value));
+                }
+            }
+        } else {
+            if (node.getNodeType() == ComputationNodeType.POWER)
+                update(sha, new byte[8], node.getExponent());
+            for (ComputationNode child : node.getChildren()) {
+                sha.update(keys.get(child).getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : sha.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest sha, byte[] buffer, long value) {
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = (byte) (value >>> (56 - 8 * i));
+        }
+        sha.update(buffer);
+    }
+
+    /**
+     * Returns a copy of the cached result for {@code key}, or null if it is
+     * in neither tier. Every lookup counts as a hit or a miss; a disk entry
+     * that cannot be read counts as a miss and a disk failure.
+     */
+    public double[][] get(String key) {
+        double[][] cached;
+        Long size;
+        synchronized (this) {
+            Entry entry = memory.get(key);
+            if (entry == null)
+                entry = spilling.get(key); // evicted, still being written out
+            if (entry != null) {
+                entry.hits++;
+                hits++;
+                bytesSaved += entry.bytes;
+                cached = entry.matrix;
+                size = null;
+            } else {
+                size = disk.remove(key);
+                if (size == null) {
+                    misses++;
+                    return null;
+                }
+                bytesOnDisk -= size;
+                busy.add(key);
+                cached = null;
+            }
+        }
+        if (size != null) {
+            // the file is read outside the lock; the key is claimed, so nobody else touches it
+            cached = readFromDisk(key);
+            List<Spill> spills;
+            synchronized (this) {
+                busy.remove(key);
+                if (cached == null) {
+                    misses++;
+                    diskFailures++;
+                    return null;
+                }
+                hits++;
+                diskHits++;
+                bytesSaved += size;
+                spills = memory.containsKey(key) ? List.of() : store(key, cached, size, 1);
+            }
+            spill(spills);
+        }
+        return copy(cached);
+    }
+
+    /**
+     * Caches {@code matrix} as the result of {@code key}; the cache keeps
+     * its own copy. Results larger than the whole memory tier are skipped.
+     */
+    public void put(String key, double[][] matrix) {
+        if (bytesOf(matrix) <= maxBytes)
+            putOwned(key, copy(matrix));
+    }
+
+    /**
+     * Like {@link #put}, for a matrix nobody else holds, so no copy is needed.
+     */
+    void putOwned(String key, double[][] matrix) {
+        long size = bytesOf(matrix);
+        if (size > maxBytes)
+            return;
+        boolean stale = false;
+        List<Spill> spills;
+        synchronized (this) {
+            if (memory.containsKey(key))
+                return;
+            Long onDisk = disk.remove(key);
+            if (onDisk != null) {
+                bytesOnDisk -= onDisk;
+                busy.add(key);
+                stale = true;
+            }
+            spills = store(key, matrix, size, 0);
+        }
+        if (stale) {
+            deleteFromDisk(key);
+            synchronized (this) {
+                busy.remove(key);
+            }
+        }
+        spill(spills);
+    }
+
+    /**
+     * Puts an entry into memory and returns the evicted entries that have to
+     * be written to disk, which the caller does with {@link #spill} once it
+     * released the lock. Called with the lock held.
+     */
+    private List<Spill> store(String key, double[][] matrix, long size, long initialHits) {
+        List<Spill> spills = new ArrayList<>();
+        while (bytesInMemory + size > maxBytes && !memory.isEmpty()) {
+            Spill spill = evictOne();
+            if (spill != null)
+                spills.add(spill);
+        }
+        memory.put(key, new Entry(matrix, size, initialHits));
+        bytesInMemory += size;
+        return spills;
+    }
+
+    // guarded by this; returns the victim if it goes to disk
+    private Spill evictOne() {
+        String victim = null;
+        if (policy == EvictionPolicy.LRU) {
+            victim = memory.keySet().iterator().next();
+        } else {
+            // fewest hits, scanning from the least recently used so it wins ties
+            long fewest = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> e : memory.entrySet()) {
+                if (e.getValue().hits < fewest) {
+                    fewest = e.getValue().hits;
+                    victim = e.getKey();
+                }
+            }
+        }
+        Entry entry = memory.remove(victim);
+        bytesInMemory -= entry.bytes;
+        evictions++;
+        // a key whose file is in use is dropped rather than written twice at once
+        if (diskDir == null || entry.bytes > maxDiskBytes || busy.contains(victim))
+            return null;
+        busy.add(victim);
+        spilling.put(victim, entry);
+        return new Spill(victim, entry);
+    }
+
+    /**
+     * Writes evicted entries to disk without holding the lock. Each one first
+     * reserves its room, removing the least recently used files, and is only
+     * published to the disk tier once written, unless the cache was cleared
+     * or the result was put back into memory meanwhile.
+     */
+    private void spill(List<Spill> spills) {
+        for (Spill spill : spills) {
+            List<String> stale = new ArrayList<>();
+            synchronized (this) {
+                while (bytesOnDisk + spill.entry.bytes > maxDiskBytes && !disk.isEmpty()) {
+                    Iterator<Map.Entry<String, Long>> oldest = disk.entrySet().iterator();
+                    Map.Entry<String, Long> e = oldest.next();
+                    oldest.remove();
+                    bytesOnDisk -= e.getValue();
+                    busy.add(e.getKey());
+                    stale.add(e.getKey());
+                }
+                bytesOnDisk += spill.entry.bytes;
+            }
+            for (String key : stale) {
+                deleteFromDisk(key);
+            }
+            boolean written = writeToDisk(spill.key, spill.entry);
+            boolean discard;
+            synchronized (this) {
+                busy.removeAll(stale);
+                boolean current = spilling.remove(spill.key) == spill.entry; // not cleared meanwhile
+                discard = !written || !current || memory.containsKey(spill.key);
+                if (!written)
+                    diskFailures++;
+                if (!discard)
+                    disk.put(spill.key, spill.entry.bytes);
+                else if (current)
+                    bytesOnDisk -= spill.entry.bytes;
+                if (!discard || !written)
+                    busy.remove(spill.key);
+            }
+            if (discard && written) {
+                deleteFromDisk(spill.key);
+                synchronized (this) {
+                    busy.remove(spill.key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the entry's file; false (and no file left behind) if it fails.
+     */
+    private boolean writeToDisk(String key, Entry entry) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(fileOf(key))))) {
+            out.writeInt(entry.matrix.length);
+            out.writeInt(entry.matrix.length == 0 ? 0 : entry.matrix[0].length);
+            for (double[] row : entry.matrix) {
+                for (double value : row) {
+                    out.writeDouble(value);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            deleteFromDisk(key);
+            return false;
+        }
+    }
+
+    /**
+     * Reads and deletes the entry's file; null if it cannot be read.
+     */
+    private double[][] readFromDisk(String key) {
+        Path file = fileOf(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            double[][] matrix = new double[in.readInt()][in.readInt()];
+            for (double[] row : matrix) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = in.readDouble();
+                }
+            }
+            return matrix;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            deleteFromDisk(key);
+        }
+    }
+
+    private void deleteFromDisk(String key) {
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException e) {
+            synchronized (this) {
+                diskFailures++;
+            }
+        }
+    }
+
+    private Path fileOf(String key) {
+        return diskDir.resolve(key + ".bin");
+    }
+
+    /**
+     * Drops every entry of both tiers; the statistics are kept. Entries
+     * still being written to disk are dropped once written.
+     */
+    public void clear() {
+        List<String> files;
+        synchronized (this) {
+            files = new ArrayList<>(disk.keySet());
+            busy.addAll(files);
+            disk.clear();
+            spilling.clear();
+            memory.clear();
+            bytesInMemory = 0;
+            bytesOnDisk = 0;
+        }
+        for (String key : files) {
+            deleteFromDisk(key);
+        }
+        synchronized (this) {
+            busy.removeAll(files);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Disk tier files that could not be written, read or deleted. A failed
+     * write drops the entry, a failed read counts as a miss.
+     */
+    public synchronized long getDiskFailures() {
+        return diskFailures;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Fraction of lookups that found a result, 0 before the first lookup.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Total size of the results that were served from the cache instead of
+     * being computed again.
+     */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getBytesInMemory() {
+        return bytesInMemory;
+    }
+
+    public synchronized long getBytesOnDisk() {
+        return bytesOnDisk;
+    }
+
+    public synchronized int size() {
+        return memory.size() + disk.size();
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Result Cache [" + policy + "] | Hits: " + hits + " (disk " + diskHits + ")"
+                + " | Misses: " + misses
+                + " | Hit Rate: " + String.format("%.1f%%", 100 * getHitRate())
+                + " | Bytes Saved: " + bytesSaved
+                + " | Memory: " + bytesInMemory + "/" + maxBytes + " bytes"
+                + (diskDir == null ? "" : " | Disk: " + bytesOnDisk + "/" + maxDiskBytes + " bytes"
+                        + " (" + diskFailures + " failures)")
+                + " | Evictions: " + evictions;
+    }
+
+    static long bytesOf(double[][] matrix) {
+        long size = 0;
+        for (double[] row : matrix) {
+            size += (long) row.length * Double.BYTES;
+        }
+        return size;
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] copy = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * An evicted entry on its way to disk.
+     */
+    private static final class Spill {
+        final String key;
+        final Entry entry;
+
+        Spill(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * A cached result and how often it was hit.
+     */
+    private static final class Entry {
+        final double[][] matrix;
+        final long bytes;
+        long hits; // guarded by the cache
+
+        Entry(double[][] matrix, long bytes, long hits) {
+            this.matrix = matrix;
+            this.bytes = bytes;
+            this.hits = hits;
+        }
+    }
+}
@@ -31,6 +31,16 @@ void testConstructorWithArray_CreatesRowMajorMatrix() {
     assertEquals(VectorOrientation.ROW_MAJOR, matrix.getOrientation());
 }
 
+@Test
+void testDimensionsConstructor_CreatesZeroRowMajorMatrix() {
+    SharedMatrix matrix = new SharedMatrix(2, 3);
+
+    assertEquals(2, matrix.length());
+    assertEquals(VectorOrientation.ROW_MAJOR, matrix.getOrientation());
+    assertArrayEquals(new double[][]{{0, 0, 0}, {0, 0, 0}}, matrix.readRowMajor());
+    assertThrows(IllegalArgumentException.class, () -> new SharedMatrix(-1, 2));
+}
+
 @Test
 void testConstructorWithArray_StoresCorrectValues() {
     double[][] data = {
@@ -37,6 +37,15 @@ class SharedVectorTest {
         assertArrayEquals(values, toArray(vec), DELTA);
     }
 
+    @Test
+    void set_replacesSingleElement() {
+        SharedVector vec = new SharedVector(new double[] { 1.0, 2.0, 3.0 }, VectorOrientation.ROW_MAJOR);
+
+        vec.set(1, 5.0);
+
+        assertArrayEquals(new double[] { 1.0, 5.0, 3.0 }, toArray(vec), DELTA);
+    }
+
     @Test
     void getOrientation_returnsGivenOrientation() {
         SharedVector row = new SharedVector(new double[] { 1.0 }, VectorOrientation.ROW_MAJOR);
@@ -89,6 +98,18 @@ class SharedVectorTest {
         assertEquals(VectorOrientation.ROW_MAJOR, a.getOrientation());
     }
 
+    @Test
+    void subtract_sameSize_subtractsInPlace() {
+        SharedVector a = new SharedVector(new double[] { 1.0, 2.0 }, VectorOrientation.ROW_MAJOR);
+        SharedVector b = new SharedVector(new double[] { 3.0, 5.0 }, VectorOrientation.ROW_MAJOR);
+
+        a.subtract(b);
+
+        assertArrayEquals(new double[] { -2.0, -3.0 }, toArray(a), DELTA);
+        assertArrayEquals(new double[] { 3.0, 5.0 }, toArray(b), DELTA);
+        assertThrows(IllegalArgumentException.class, () -> a.subtract(null));
+    }
+
     @Test
     void add_null_throwsIllegalArgumentException() {
         SharedVector a = new SharedVector(new double[] { 1.0 }, VectorOrientation.ROW_MAJOR);
@@ -660,4 +681,45 @@ class SharedVectorTest {
         assertEquals(-3.0, vector.get(2), DELTA);
     }
 
+    @Test
+    void testFrozen_ReadsWithoutLockWritesFail() {
+        SharedVector vector = new SharedVector(new double[] { 1.0, 2.0 }, VectorOrientation.ROW_MAJOR);
+        SharedVector other = new SharedVector(new double[] { 1.0, 1.0 }, VectorOrientation.ROW_MAJOR);
+
+        vector.setAccessMode(AccessMode.FROZEN);
+        other.add(vector);
+
+        assertEquals(2.0, vector.get(1), DELTA);
+        assertEquals(3.0, other.get(1), DELTA);
+        assertThrows(IllegalStateException.class, vector::negate);
+        assertEquals(1.0, vector.get(0), DELTA);
+    }
+
+    @Test
+    void testOwned_SecondThreadRejectedWithAccessChecks() throws InterruptedException {
+        SharedVector vector = new SharedVector(new double[] { 1.0, 2.0 }, VectorOrientation.ROW_MAJOR);
+        boolean checks = SharedVector.isAccessChecked();
+        SharedVector.setAccessChecks(true);
+        try {
+            vector.setAccessMode(AccessMode.OWNED);
+            vector.negate();
+            Throwable[] failure = new Throwable[1];
+            Thread intruder = new Thread(() -> {
+                try {
+                    vector.get(0);
+                } catch (IllegalStateException e) {
+                    failure[0] = e;
+                }
+            });
+            intruder.start();
+            intruder.join();
+
+            assertTrue(failure[0] instanceof IllegalStateException);
+            // handing the vector back to the lock clears the owner
+            vector.setAccessMode(AccessMode.LOCKED);
+            assertEquals(-1.0, vector.get(0), DELTA);
+        } finally {
+            SharedVector.setAccessChecks(checks);
+        }
+    }
 }
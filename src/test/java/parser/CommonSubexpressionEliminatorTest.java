@@ -0,0 +1,94 @@
+package parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommonSubexpressionEliminatorTest {
+
+    private static ComputationNode matrix(double... row) {
+        return new ComputationNode(new double[][] { row });
+    }
+
+    private static ComputationNode op(ComputationNodeType type, ComputationNode... children) {
+        return new ComputationNode(type, List.of(children));
+    }
+
+    @Test
+    void testEliminate_RepeatedProduct_SharedOnce() {
+        ComputationNode ab1 = op(ComputationNodeType.MULTIPLY, matrix(1, 2), matrix(3, 4));
+        ComputationNode ab2 = op(ComputationNodeType.MULTIPLY, matrix(1, 2), matrix(3, 4));
+        ComputationNode root = op(ComputationNodeType.ADD, ab1, ab2);
+        CommonSubexpressionEliminator cse = new CommonSubexpressionEliminator();
+
+        ComputationNode result = cse.eliminate(root);
+
+        assertSame(root, result);
+        assertSame(result.getChildren().get(0), result.getChildren().get(1));
+        // 7 nodes: the second product and both of its matrices are merged away
+        assertEquals(7, cse.getNodesVisited());
+        assertEquals(3, cse.getNodesMerged());
+        assertEquals(2, cse.getLeavesMerged());
+    }
+
+    @Test
+    void testEliminate_DifferentValuesOrOrder_NotMerged() {
+        ComputationNode root = op(ComputationNodeType.ADD,
+                op(ComputationNodeType.MULTIPLY, matrix(1, 2), matrix(3, 4)),
+                op(ComputationNodeType.MULTIPLY, matrix(3, 4), matrix(1, 2)),
+                op(ComputationNodeType.MULTIPLY, matrix(1, 2), matrix(3, 5)));
+        CommonSubexpressionEliminator cse = new CommonSubexpressionEliminator();
+
+        ComputationNode result = cse.eliminate(root);
+
+        List<ComputationNode> children = result.getChildren();
+        assertNotSame(children.get(0), children.get(1));
+        assertNotSame(children.get(0), children.get(2));
+        // only the repeated literals [1, 2] and [3, 4] are shared
+        assertEquals(3, cse.getNodesMerged());
+        assertSame(children.get(0).getChildren().get(0), children.get(1).getChildren().get(1));
+    }
+
+    @Test
+    void testEliminate_SameOperatorDifferentType_NotMerged() {
+        ComputationNode a = matrix(1, 2);
+        ComputationNode root = op(ComputationNodeType.ADD,
+                op(ComputationNodeType.NEGATE, a), op(ComputationNodeType.TRANSPOSE, matrix(1, 2)));
+        CommonSubexpressionEliminator cse = new CommonSubexpressionEliminator();
+
+        ComputationNode result = cse.eliminate(root);
+
+        assertNotSame(result.getChildren().get(0), result.getChildren().get(1));
+        assertEquals(1, cse.getLeavesMerged());
+    }
+
+    @Test
+    void testContentDigest_EqualMatricesEqualDigest() {
+        double[][] m1 = { { 1, 2 }, { 3, 4 } };
+        double[][] m2 = { { 1, 2 }, { 3, 4 } };
+        double[][] flat = { { 1, 2, 3, 4 } };
+
+        assertEquals(CommonSubexpressionEliminator.contentDigest(m1), CommonSubexpressionEliminator.contentDigest(m2));
+        assertNotEquals(CommonSubexpressionEliminator.contentDigest(m1),
+                CommonSubexpressionEliminator.contentDigest(flat));
+    }
+
+    @Test
+    void testEliminate_DeepChain_NoStackOverflow() {
+        ComputationNode root = matrix(1);
+        for (int i = 0; i < 100_000; i++) {
+            root = op(ComputationNodeType.NEGATE, root);
+        }
+        CommonSubexpressionEliminator cse = new CommonSubexpressionEliminator();
+
+        cse.eliminate(root);
+
+        assertEquals(100_001, cse.getNodesVisited());
+        assertEquals(0, cse.getNodesMerged());
+    }
+}
@@ -0,0 +1,171 @@
+package parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import memory.SharedMatrix;
+
+public class ComputationNodeTest {
+
+    private static ComputationNode matrix(int rows, int cols) {
+        return new ComputationNode(new double[rows][cols]);
+    }
+
+    private static ComputationNode chain(ComputationNodeType type, ComputationNode... operands) {
+        return new ComputationNode(type, new ArrayList<>(List.of(operands)));
+    }
+
+    @Test
+    void testAssociativeNesting_ShapedMultiplyChain_PicksCheapestOrder() {
+        // (A*B)*C costs 1000*10*1000 + 1000*1000*10, A*(B*C) only 10*1000*10 + 1000*10*10
+        ComputationNode a = matrix(1000, 10);
+        ComputationNode b = matrix(10, 1000);
+        ComputationNode c = matrix(1000, 10);
+        ComputationNode root = chain(ComputationNodeType.MULTIPLY, a, b, c);
+
+        root.associativeNesting();
+
+        assertSame(a, root.getChildren().get(0));
+        ComputationNode bc = root.getChildren().get(1);
+        assertEquals(ComputationNodeType.MULTIPLY, bc.getNodeType());
+        assertSame(b, bc.getChildren().get(0));
+        assertSame(c, bc.getChildren().get(1));
+    }
+
+    @Test
+    void testAssociativeNesting_LongChain_SplitsInTheMiddle() {
+        // 10x1000 * 1000x10 * 10x1000 * 1000x10: (A*B)*(C*D) is cheapest
+        ComputationNode a = matrix(10, 1000);
+        ComputationNode b = matrix(1000, 10);
+        ComputationNode c = matrix(10, 1000);
+        ComputationNode d = matrix(1000, 10);
+        ComputationNode root = chain(ComputationNodeType.MULTIPLY, a, b, c, d);
+
+        root.associativeNesting();
+
+        ComputationNode left = root.getChildren().get(0);
+        ComputationNode right = root.getChildren().get(1);
+        assertEquals(List.of(a, b), left.getChildren());
+        assertEquals(List.of(c, d), right.getChildren());
+    }
+
+    @Test
+    void testAssociativeNesting_UnknownShapes_NestsLeftAndAddStaysFlat() {
+        ComputationNode a = matrix(2, 2);
+        ComputationNode b = matrix(2, 2);
+        ComputationNode c = matrix(2, 2);
+        ComputationNode sum = chain(ComputationNodeType.ADD, a, b, c);
+        // the middle operand does not fit, so the shapes are unknown
+        ComputationNode x = matrix(1000, 10);
+        ComputationNode y = matrix(3, 1000);
+        ComputationNode z = matrix(1000, 10);
+        ComputationNode product = chain(ComputationNodeType.MULTIPLY, x, y, z);
+
+        sum.associativeNesting();
+        product.associativeNesting();
+
+        assertEquals(List.of(a, b, c), sum.getChildren());
+        assertEquals(List.of(x, y), product.getChildren().get(0).getChildren());
+        assertSame(z, product.getChildren().get(1));
+    }
+
+    @Test
+    void testAssociativeNesting_ChainBelowProduct_UsesInferredShapes() {
+        // the first operand is itself a (1000x10) product, known only by inference
+        ComputationNode inner = chain(ComputationNodeType.MULTIPLY, matrix(1000, 5), matrix(5, 10));
+        ComputationNode b = matrix(10, 1000);
+        ComputationNode c = matrix(1000, 10);
+        ComputationNode root = chain(ComputationNodeType.MULTIPLY, inner, b, c);
+
+        root.associativeNesting();
+
+        assertSame(inner, root.getChildren().get(0));
+        assertEquals(List.of(b, c), root.getChildren().get(1).getChildren());
+    }
+
+    @Test
+    void testResolve_ColumnMajorResult_FlattenedToRowsOnce() {
+        SharedMatrix result = new SharedMatrix();
+        result.loadColumnMajor(new double[][] { { 1, 2 }, { 3, 4 }, { 5, 6 } });
+        ComputationNode node = chain(ComputationNodeType.NEGATE, matrix(3, 2));
+
+        node.resolve(result);
+
+        assertEquals(ComputationNodeType.MATRIX, node.getNodeType());
+        assertSame(result, node.getSharedMatrix());
+        double[][] flat = node.getMatrix();
+        assertArrayEquals(new double[] { 1, 2 }, flat[0]);
+        assertArrayEquals(new double[] { 5, 6 }, flat[2]);
+        assertSame(flat, node.getMatrix());
+        assertNull(node.getSharedMatrix());
+    }
+
+    @Test
+    void testAssociativeNesting_Power_ExpandedByRepeatedSquaring() {
+        ComputationNode a = matrix(3, 3);
+        ComputationNode power = new ComputationNode("^", List.of(a), 13);
+
+        power.associativeNesting();
+
+        // A^2, A^4, A^8, A * A^4 and the root: 5 products instead of 12
+        Set<ComputationNode> products = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ComputationNode> stack = new ArrayList<>(List.of(power));
+        while (!stack.isEmpty()) {
+            ComputationNode node = stack.remove(stack.size() - 1);
+            if (node.getNodeType() == ComputationNodeType.MULTIPLY && products.add(node))
+                stack.addAll(node.getChildren());
+        }
+        assertEquals(5, products.size());
+        assertEquals(0, power.getExponent());
+        ComputationNode square = power.getChildren().get(0).getChildren().get(1).getChildren().get(0);
+        assertSame(square.getChildren().get(0), square.getChildren().get(1));
+        assertSame(a, square.getChildren().get(0));
+    }
+
+    @Test
+    void testAssociativeNesting_FirstPowerBelowRoot_ParentUsesOperand() {
+        ComputationNode a = matrix(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> new ComputationNode("^", List.of(a)));
+        ComputationNode product = chain(ComputationNodeType.MULTIPLY, matrix(2, 2), matrix(2, 2));
+        ComputationNode root = chain(ComputationNodeType.ADD,
+                new ComputationNode(ComputationNodeType.POWER, List.of(a), 1),
+                new ComputationNode(ComputationNodeType.POWER, List.of(product), 1));
+
+        root.associativeNesting();
+
+        assertSame(a, root.getChildren().get(0));
+        assertSame(product, root.getChildren().get(1));
+    }
+
+    @Test
+    void testAssociativeNesting_FirstPowerAtRoot_TakesOperandsPlace() {
+        double[][] values = { { 1, 2 }, { 3, 4 } };
+        ComputationNode leafPower = new ComputationNode(ComputationNodeType.POWER,
+                List.of(new ComputationNode(values)), 1);
+        ComputationNode a = matrix(2, 2);
+        ComputationNode b = matrix(2, 2);
+        ComputationNode productPower = new ComputationNode(ComputationNodeType.POWER,
+                List.of(chain(ComputationNodeType.MULTIPLY, a, b)), 1);
+
+        leafPower.associativeNesting();
+        productPower.associativeNesting();
+
+        assertEquals(ComputationNodeType.MATRIX, leafPower.getNodeType());
+        assertArrayEquals(values[1], leafPower.getMatrix()[1]);
+        assertNotSame(values, leafPower.getMatrix());
+        assertEquals(ComputationNodeType.MULTIPLY, productPower.getNodeType());
+        assertEquals(List.of(a, b), productPower.getChildren());
+    }
+}
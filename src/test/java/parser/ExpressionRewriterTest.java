@@ -0,0 +1,114 @@
+package parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpressionRewriterTest {
+
+    private static ComputationNode matrix(int rows, int cols) {
+        return new ComputationNode(new double[rows][cols]);
+    }
+
+    private static ComputationNode op(ComputationNodeType type, ComputationNode... children) {
+        return new ComputationNode(type, List.of(children));
+    }
+
+    @Test
+    void testRewrite_DoubleTransposeAndNegate_Cancel() {
+        ComputationNode a = matrix(2, 3);
+        ComputationNode root = op(ComputationNodeType.TRANSPOSE, op(ComputationNodeType.TRANSPOSE,
+                op(ComputationNodeType.NEGATE, op(ComputationNodeType.NEGATE, a))));
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+
+        assertSame(a, rewriter.rewrite(root));
+        assertEquals(Map.of("double-negate", 1, "double-transpose", 1), rewriter.getFiredRules());
+    }
+
+    @Test
+    void testRewrite_AddNegated_BecomesSubtract() {
+        ComputationNode a = matrix(2, 2);
+        ComputationNode b = matrix(2, 2);
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+
+        ComputationNode result = rewriter.rewrite(op(ComputationNodeType.ADD, op(ComputationNodeType.NEGATE, b), a));
+
+        assertEquals(ComputationNodeType.SUBTRACT, result.getNodeType());
+        assertSame(a, result.getChildren().get(0));
+        assertSame(b, result.getChildren().get(1));
+        assertTrue(rewriter.toString().contains("fused-subtract=1"));
+    }
+
+    @Test
+    void testRewrite_NegatedFactor_MovedToSmallestSide() {
+        // -(A) * B with A 100x100 and B 100x1: negating the 100x1 product is cheapest
+        ComputationNode a = matrix(100, 100);
+        ComputationNode b = matrix(100, 1);
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+
+        ComputationNode result = rewriter.rewrite(op(ComputationNodeType.MULTIPLY,
+                op(ComputationNodeType.NEGATE, a), b));
+
+        assertEquals(ComputationNodeType.NEGATE, result.getNodeType());
+        ComputationNode product = result.getChildren().get(0);
+        assertEquals(ComputationNodeType.MULTIPLY, product.getNodeType());
+        assertSame(a, product.getChildren().get(0));
+        assertSame(b, product.getChildren().get(1));
+    }
+
+    @Test
+    void testRewrite_NegationAlreadyCheapest_Untouched() {
+        // -(A) * B with A 1x100 and B 100x100: A is already the smallest
+        ComputationNode negated = op(ComputationNodeType.NEGATE, matrix(1, 100));
+        ComputationNode root = op(ComputationNodeType.MULTIPLY, negated, matrix(100, 100));
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+
+        ComputationNode result = rewriter.rewrite(root);
+
+        assertSame(root, result);
+        assertSame(negated, result.getChildren().get(0));
+        assertEquals("Rewrites: none", rewriter.toString());
+    }
+
+    @Test
+    void testRewrite_TransposedFactors_OnlyWhenCheaper() {
+        // T(A) * T(B) with A 10x2, B 2x10: B*A is 2x2, cheaper than transposing both
+        ComputationNode a = matrix(10, 2);
+        ComputationNode b = matrix(2, 10);
+        ExpressionRewriter rewriter = new ExpressionRewriter();
+
+        ComputationNode result = rewriter.rewrite(op(ComputationNodeType.MULTIPLY,
+                op(ComputationNodeType.TRANSPOSE, a), op(ComputationNodeType.TRANSPOSE, b)));
+
+        assertEquals(ComputationNodeType.TRANSPOSE, result.getNodeType());
+        ComputationNode product = result.getChildren().get(0);
+        assertSame(b, product.getChildren().get(0));
+        assertSame(a, product.getChildren().get(1));
+
+        // with A 2x10, B 10x2 the product B*A is 10x10: not worth it
+        ExpressionRewriter second = new ExpressionRewriter();
+        ComputationNode root = op(ComputationNodeType.MULTIPLY,
+                op(ComputationNodeType.TRANSPOSE, matrix(2, 10)), op(ComputationNodeType.TRANSPOSE, matrix(10, 2)));
+        assertSame(root, second.rewrite(root));
+    }
+
+    @Test
+    void testRewrite_Power_LeftForCseAndEngine() {
+        ComputationNode a = matrix(2, 2);
+        ComputationNode root = op(ComputationNodeType.ADD,
+                new ComputationNode(ComputationNodeType.POWER, List.of(a), 8),
+                new ComputationNode(ComputationNodeType.POWER, List.of(a), 8));
+
+        ComputationNode result = new CommonSubexpressionEliminator().eliminate(new ExpressionRewriter().rewrite(root));
+
+        ComputationNode power = result.getChildren().get(0);
+        assertEquals(ComputationNodeType.POWER, power.getNodeType());
+        assertEquals(8, power.getExponent());
+        assertSame(power, result.getChildren().get(1));
+    }
+}
@@ -0,0 +1,52 @@
+package parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class InputParserTest {
+
+    @TempDir
+    Path dir;
+
+    private ComputationNode parse(String json) throws IOException, ParseException {
+        Path file = dir.resolve("input.json");
+        Files.writeString(file, json);
+        return new InputParser().parse(file.toString());
+    }
+
+    @Test
+    void testParse_PowerWithExponent_CreatesPowerNode() throws Exception {
+        ComputationNode root = parse("{\"operator\": \"^\", \"exponent\": 5, \"operands\": [[[1, 1], [1, 0]]]}");
+
+        assertEquals(ComputationNodeType.POWER, root.getNodeType());
+        assertEquals(5, root.getExponent());
+    }
+
+    @Test
+    void testParse_PowerWithoutExponent_ThrowsParseException() {
+        assertThrows(ParseException.class,
+                () -> parse("{\"operator\": \"^\", \"operands\": [[[1, 1], [1, 0]]]}"));
+    }
+
+    @Test
+    void testParse_ExponentOnOtherOperator_ThrowsParseException() {
+        assertThrows(ParseException.class,
+                () -> parse("{\"operator\": \"+\", \"exponent\": 2, \"operands\": [[[1]], [[2]]]}"));
+    }
+
+    @Test
+    void testParse_NonPositiveExponent_ThrowsParseException() {
+        assertThrows(ParseException.class,
+                () -> parse("{\"operator\": \"^\", \"exponent\": 0, \"operands\": [[[1]]]}"));
+        assertThrows(ParseException.class,
+                () -> parse("{\"operator\": \"^\", \"exponent\": 1.5, \"operands\": [[[1]]]}"));
+    }
+}
@@ -0,0 +1,70 @@
+package scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Microbenchmark of dispatch overhead: tasks/sec for near-empty tasks with the
+ * locked queue + handoff path versus the lock-free ring, at 1 to 64 workers.
+ * Not a unit test; run it by hand, e.g.
+ * {@code java -cp target/classes:target/test-classes scheduling.DispatchBenchmark [tasks] [rounds]}.
+ */
+public class DispatchBenchmark {
+
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int TASKS_PER_BATCH = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        System.out.printf("%-8s %-10s %15s%n", "threads", "dispatch", "tasks/sec");
+        for (int threads : THREAD_COUNTS) {
+            for (DispatchMode mode : DispatchMode.values()) {
+                measure(threads, mode, tasks / 4); // warm-up
+                double best = 0;
+                for (int r = 0; r < rounds; r++) {
+                    best = Math.max(best, measure(threads, mode, tasks));
+                }
+                System.out.printf("%-8d %-10s %15.0f%n", threads, mode, best);
+            }
+        }
+    }
+
+    /**
+     * Pushes {@code tasks} tiny tasks through a fresh executor in batches
+     * submitted from {@code threads} client threads, so both producers and
+     * consumers contend, and returns the achieved rate.
+     */
+    private static double measure(int threads, DispatchMode mode, int tasks) throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(threads, HandoffMode.SPIN_THEN_PARK, mode);
+        AtomicLong sink = new AtomicLong();
+        int batches = Math.max(1, tasks / TASKS_PER_BATCH);
+        int clients = Math.min(threads, batches);
+        List<Thread> submitters = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            final int share = batches / clients + (c < batches % clients ? 1 : 0);
+            submitters.add(new Thread(() -> {
+                List<Runnable> batch = new ArrayList<>(TASKS_PER_BATCH);
+                for (int i = 0; i < TASKS_PER_BATCH; i++) {
+                    batch.add(sink::incrementAndGet);
+                }
+                for (int b = 0; b < share; b++) {
+                    executor.submitAll(batch);
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (Thread t : submitters) {
+            t.start();
+        }
+        for (Thread t : submitters) {
+            t.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return sink.get() * 1_000_000_000.0 / elapsed;
+    }
+}
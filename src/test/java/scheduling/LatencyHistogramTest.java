@@ -0,0 +1,63 @@
+package scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogram_ReturnsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMean(), 0.001);
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void testRecord_CountMeanAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(0);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(400 / 3.0, histogram.getMean(), 0.001);
+        assertEquals(300, histogram.getMax());
+    }
+
+    @Test
+    void testPercentile_WithinFactorOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        long p50 = histogram.getPercentile(0.5);
+        assertTrue(p50 >= 1_000 && p50 < 2_048, "p50 was " + p50);
+        assertEquals(1_000_000, histogram.getPercentile(1.0));
+    }
+
+    @Test
+    void testPercentile_InvalidFraction_ThrowsException() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(1.5));
+    }
+
+    @Test
+    void testReset_ClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
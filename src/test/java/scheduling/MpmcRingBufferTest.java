@@ -0,0 +1,132 @@
+package scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+public class MpmcRingBufferTest {
+
+    @Test
+    void testConstructor_CapacityNotPowerOfTwo_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new MpmcRingBuffer<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new MpmcRingBuffer<Integer>(1));
+        assertThrows(IllegalArgumentException.class, () -> new MpmcRingBuffer<Integer>(6));
+    }
+
+    @Test
+    void testOfferPoll_FifoOrderAndFullRing() {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testOfferPoll_WrapsAroundManyLaps() {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(2);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ring.offer(i));
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void testDrainTo_ClaimsConsecutiveElements() {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(8);
+        Integer[] out = new Integer[4];
+        for (int i = 0; i < 6; i++) {
+            ring.offer(i);
+        }
+
+        assertEquals(4, ring.drainTo(out, 4));
+        assertEquals(List.of(0, 1, 2, 3), List.of(out));
+        assertEquals(2, ring.drainTo(out, 4));
+        assertEquals(4, out[0]);
+        assertEquals(5, out[1]);
+        assertEquals(0, ring.drainTo(out, 4));
+    }
+
+    @Test
+    void testOffer_NullElement_ThrowsException() {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(2);
+
+        assertThrows(IllegalArgumentException.class, () -> ring.offer(null));
+    }
+
+    @Test
+    void testConcurrent_ProducersAndConsumers_DeliverEveryElementOnce() throws InterruptedException {
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(16);
+        int producers = 4;
+        int perProducer = 20_000;
+        int total = producers * perProducer;
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        AtomicInteger consumed = new AtomicInteger(0);
+        for (int c = 0; c < 4; c++) {
+            final boolean batched = c % 2 == 0;
+            threads.add(new Thread(() -> {
+                Integer[] out = new Integer[4];
+                while (consumed.get() < total) {
+                    int n;
+                    if (batched) {
+                        n = ring.drainTo(out, out.length);
+                    } else {
+                        out[0] = ring.poll();
+                        n = out[0] == null ? 0 : 1;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        seen.incrementAndGet(out[i]);
+                    }
+                    if (consumed.addAndGet(n) < total && n == 0) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join(10_000);
+        }
+        for (Thread t : threads) {
+            assertFalse(t.isAlive());
+        }
+
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, seen.get(i), "element " + i);
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
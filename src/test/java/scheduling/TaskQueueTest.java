@@ -0,0 +1,106 @@
+package scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskQueueTest {
+
+    private static final long LONG_THRESHOLD = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void testPoll_EmptyQueue_ReturnsNull() {
+        TaskQueue queue = new TaskQueue(LONG_THRESHOLD);
+
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testPoll_HigherClassFirst() {
+        TaskQueue queue = new TaskQueue(LONG_THRESHOLD);
+        Runnable batch = () -> {
+        };
+        Runnable interactive = () -> {
+        };
+
+        queue.add(batch, TaskPriority.BATCH, TiredExecutor.NO_DEADLINE);
+        queue.add(interactive, TaskPriority.INTERACTIVE, TiredExecutor.NO_DEADLINE);
+
+        assertSame(interactive, queue.poll().task);
+        assertSame(batch, queue.poll().task);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testPoll_EarliestDeadlineFirstWithinClass() {
+        TaskQueue queue = new TaskQueue(LONG_THRESHOLD);
+        long now = System.nanoTime();
+        Runnable late = () -> {
+        };
+        Runnable early = () -> {
+        };
+        Runnable none = () -> {
+        };
+
+        queue.add(none, TaskPriority.NORMAL, TiredExecutor.NO_DEADLINE);
+        queue.add(late, TaskPriority.NORMAL, now + 2_000_000);
+        queue.add(early, TaskPriority.NORMAL, now + 1_000_000);
+
+        assertSame(early, queue.poll().task);
+        assertSame(late, queue.poll().task);
+        assertSame(none, queue.poll().task);
+    }
+
+    @Test
+    void testPoll_SameDeadline_FifoOrder() {
+        TaskQueue queue = new TaskQueue(LONG_THRESHOLD);
+        Runnable first = () -> {
+        };
+        Runnable second = () -> {
+        };
+
+        queue.add(first, TaskPriority.NORMAL, TiredExecutor.NO_DEADLINE);
+        queue.add(second, TaskPriority.NORMAL, TiredExecutor.NO_DEADLINE);
+
+        assertSame(first, queue.poll().task);
+        assertSame(second, queue.poll().task);
+    }
+
+    @Test
+    void testPoll_StarvingLowerClassIsPromoted() throws InterruptedException {
+        TaskQueue queue = new TaskQueue(TimeUnit.MILLISECONDS.toNanos(20));
+        Runnable batch = () -> {
+        };
+        Runnable interactive = () -> {
+        };
+
+        queue.add(batch, TaskPriority.BATCH, TiredExecutor.NO_DEADLINE);
+        Thread.sleep(40);
+        queue.add(interactive, TaskPriority.INTERACTIVE, TiredExecutor.NO_DEADLINE);
+
+        assertSame(batch, queue.poll().task);
+        StringBuilder sb = new StringBuilder();
+        queue.appendReport(sb);
+        assertTrue(sb.toString().contains("Queue Wait [BATCH] | Tasks: 1"));
+        assertTrue(sb.toString().contains("Promoted: 1"));
+    }
+
+    @Test
+    void testPoll_MissedDeadlineIsCounted() {
+        TaskQueue queue = new TaskQueue(LONG_THRESHOLD);
+
+        queue.add(() -> {
+        }, TaskPriority.NORMAL, System.nanoTime() - 1);
+        queue.poll();
+
+        StringBuilder sb = new StringBuilder();
+        queue.appendReport(sb);
+        assertTrue(sb.toString().contains("Deadline Misses: 1"));
+    }
+}
@@ -3,10 +3,23 @@ package scheduling;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.junit.jupiter.api.Test;
 
@@ -255,4 +268,756 @@ public class TiredExecutorTest {
         assertEquals(5, worker1.getWorkerId());
         assertEquals(10, worker2.getWorkerId());
     }
+
+    // Tests for Executor Sharing
+
+    @Test
+    void testSubmitAll_ConcurrentCallers_EachWaitsForOwnTasks() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        AtomicBoolean slowDone = new AtomicBoolean(false);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+
+        Thread slowCaller = new Thread(() -> executor.submitAll(List.of(() -> {
+            slowStarted.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowDone.set(true);
+        })));
+        slowCaller.start();
+        slowStarted.await();
+
+        AtomicBoolean fastDone = new AtomicBoolean(false);
+        executor.submitAll(List.of(() -> fastDone.set(true)));
+
+        assertTrue(fastDone.get());
+        assertFalse(slowDone.get(), "fast batch should not wait for another caller's tasks");
+
+        slowCaller.join();
+        executor.shutdown();
+    }
+
+    @Test
+    void testShutdown_IsIdempotentAndRejectsSubmit() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        executor.shutdown();
+        executor.shutdown();
+
+        assertTrue(executor.isShutdown());
+        assertThrows(IllegalStateException.class, () -> executor.submit(() -> {
+        }));
+    }
+
+    // Tests for Elastic Pool Sizing
+
+    private static List<Runnable> sleepingTasks(int count, long millis) {
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(() -> {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        return tasks;
+    }
+
+    @Test
+    void testElastic_InvalidBounds_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TiredExecutor(3, 2, 100));
+        assertThrows(IllegalArgumentException.class, () -> new TiredExecutor(0, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new TiredExecutor(1, 2, 0));
+    }
+
+    @Test
+    void testElastic_WorkersStartLazily() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2, 4, 1000);
+
+        assertEquals(0, executor.getPoolSize());
+
+        executor.submitAll(sleepingTasks(1, 1));
+
+        assertEquals(1, executor.getPoolSize());
+        executor.shutdown();
+    }
+
+    @Test
+    void testFixed_AllWorkersStartOnFirstSubmit() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(3, executor.getMaxPoolSize());
+
+        executor.submitAll(sleepingTasks(1, 1));
+
+        assertEquals(3, executor.getPoolSize());
+        executor.shutdown();
+        assertEquals(0, executor.getPoolSize());
+    }
+
+    @Test
+    void testElastic_ScalesUpWhenWorkQueues() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, 4, 1000);
+
+        executor.submitAll(sleepingTasks(8, 30));
+
+        assertEquals(4, executor.getPoolSize());
+        assertEquals(0, executor.getQueueDepth());
+        executor.shutdown();
+    }
+
+    @Test
+    void testElastic_IdleWorkersRetireDownToMinimum() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, 4, 50);
+
+        executor.submitAll(sleepingTasks(8, 20));
+        Thread.sleep(400);
+
+        assertEquals(1, executor.getPoolSize());
+        String report = executor.getWorkerReport();
+        assertTrue(report.contains("retired"));
+        assertTrue(report.contains("1 live / 4 started"));
+
+        // the pool grows again on the next burst
+        executor.submitAll(sleepingTasks(8, 20));
+        assertTrue(executor.getPoolSize() > 1);
+        executor.shutdown();
+    }
+
+    @Test
+    void testShutdown_DrainsQueuedTasks() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        AtomicInteger completed = new AtomicInteger(0);
+
+        for (int i = 0; i < 5; i++) {
+            executor.submit(() -> {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+
+        assertEquals(5, completed.get());
+    }
+
+    // Tests for Priorities
+
+    @Test
+    void testSubmit_HigherPriorityRunsFirstWhenQueued() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<TaskPriority> order = Collections.synchronizedList(new ArrayList<>());
+
+        executor.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.submit(() -> order.add(TaskPriority.BATCH), TaskPriority.BATCH);
+        executor.submit(() -> order.add(TaskPriority.NORMAL), TaskPriority.NORMAL);
+        executor.submit(() -> order.add(TaskPriority.INTERACTIVE), TaskPriority.INTERACTIVE);
+        release.countDown();
+        executor.shutdown();
+
+        assertEquals(List.of(TaskPriority.INTERACTIVE, TaskPriority.NORMAL, TaskPriority.BATCH), order);
+        assertTrue(executor.getWorkerReport().contains("Queue Wait [INTERACTIVE]"));
+    }
+
+    @Test
+    void testSubmit_NullPriority_ThrowsException() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        assertThrows(IllegalArgumentException.class, () -> executor.submit(() -> {
+        }, null));
+        executor.shutdown();
+    }
+
+    // Tests for Admission Control
+
+    /** Occupies the executor's single worker until the latch is released. */
+    private static void blockWorker(TiredExecutor executor, CountDownLatch release) {
+        executor.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    void testAdmission_Reject_ThrowsWhenFull() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.REJECT, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        blockWorker(executor, release);
+        executor.submit(() -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+        }));
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testAdmission_CallerRuns_RunsOnSubmittingThread() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.CALLER_RUNS, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ranOnCaller = new AtomicBoolean(false);
+        Thread caller = Thread.currentThread();
+
+        blockWorker(executor, release);
+        executor.submit(() -> {
+        });
+        executor.submit(() -> ranOnCaller.set(Thread.currentThread() == caller));
+
+        assertTrue(ranOnCaller.get());
+        assertEquals(1, executor.getCallerRunsCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testAdmission_Block_TimesOut() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.BLOCK, 50);
+        CountDownLatch release = new CountDownLatch(1);
+
+        blockWorker(executor, release);
+        executor.submit(() -> {
+        });
+        long start = System.nanoTime();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+        }));
+        assertTrue(System.nanoTime() - start >= 40_000_000L);
+        assertEquals(1, executor.getBlockedCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testAdmission_Block_ProceedsWhenRoomIsMade() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.BLOCK, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean executed = new AtomicBoolean(false);
+
+        blockWorker(executor, release);
+        executor.submit(() -> {
+        });
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+        executor.submit(() -> executed.set(true));
+        executor.shutdown();
+
+        assertTrue(executed.get());
+        assertEquals(1, executor.getPeakQueueDepth());
+    }
+
+    @Test
+    void testAdmission_ShedLowest_DropsBatchTaskAndFailsItsBatch() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.SHED_LOWEST, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean batchTaskRan = new AtomicBoolean(false);
+        AtomicBoolean batchFailed = new AtomicBoolean(false);
+
+        blockWorker(executor, release);
+        Thread batchCaller = new Thread(() -> {
+            try {
+                executor.submitAll(List.of(() -> batchTaskRan.set(true)), TaskPriority.BATCH,
+                        TiredExecutor.NO_DEADLINE);
+            } catch (RejectedExecutionException e) {
+                batchFailed.set(true);
+            }
+        });
+        batchCaller.start();
+        while (executor.getQueueDepth() == 0) {
+            Thread.sleep(5);
+        }
+
+        executor.submit(() -> {
+        }, TaskPriority.INTERACTIVE);
+        batchCaller.join(1000);
+
+        assertTrue(batchFailed.get());
+        assertFalse(batchTaskRan.get());
+        assertEquals(1, executor.getShedCount());
+        // the new task is the least important one, so it is the one shed
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+        }, TaskPriority.BATCH));
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testAdmission_InvalidCapacity_ThrowsException() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.setAdmissionControl(0, OverflowPolicy.REJECT, 0));
+        executor.shutdown();
+    }
+
+    // Tests for Metrics
+
+    @Test
+    void testMetrics_HistogramsRecordEveryTask() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+
+        executor.submitAll(sleepingTasks(6, 5));
+        // joins the workers, so every task's metrics have been recorded
+        executor.shutdown();
+
+        assertEquals(6, executor.getRunTimeHistogram().getCount());
+        assertEquals(6, executor.getQueueWaitHistogram().getCount());
+        assertEquals(6, executor.getDispatchLatencyHistogram().getCount());
+        assertTrue(executor.getRunTimeP99Micros() >= 4_000);
+        assertEquals(6, executor.getTasksCompleted());
+        assertTrue(executor.getCumulativeUtilization() > 0.0);
+    }
+
+    @Test
+    void testMetrics_RegisteredAsPlatformMBean() throws Exception {
+        TiredExecutor executor = new TiredExecutor(2);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(
+                "scheduling:type=TiredExecutor,name=" + ObjectName.quote("metrics-test"));
+
+        executor.registerMBean("metrics-test");
+        executor.submitAll(sleepingTasks(2, 1));
+
+        assertEquals(2, server.getAttribute(name, "PoolSize"));
+        assertEquals(0, server.getAttribute(name, "QueueDepth"));
+        assertEquals(2, ((double[]) server.getAttribute(name, "WorkerTasksPerSecond")).length);
+
+        executor.shutdown();
+        assertFalse(server.isRegistered(name));
+    }
+
+    // Tests for Cancellation
+
+    @Test
+    void testSubmitAll_FailingTask_RethrowsAndSkipsQueuedTasks() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        AtomicInteger executed = new AtomicInteger(0);
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IllegalArgumentException("bad row");
+        });
+        for (int i = 0; i < 10; i++) {
+            tasks.add(executed::incrementAndGet);
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> executor.submitAll(tasks));
+        executor.shutdown();
+
+        assertEquals("bad row", e.getMessage());
+        assertTrue(executed.get() < 10, "queued tasks of a failed batch should be dropped");
+    }
+
+    @Test
+    void testSubmitAll_FailingTask_WorkerSurvives() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        AtomicBoolean executed = new AtomicBoolean(false);
+
+        assertThrows(RuntimeException.class, () -> executor.submitAll(List.of(() -> {
+            throw new RuntimeException("boom");
+        })));
+        executor.submitAll(List.of(() -> executed.set(true)));
+
+        assertTrue(executed.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void testSubmitAll_FailureReturnsWithoutWaitingForRunningTasks() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        AtomicBoolean sawCancel = new AtomicBoolean(false);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        List<Runnable> tasks = List.of(() -> {
+            slowStarted.countDown();
+            long until = System.nanoTime() + 2_000_000_000L;
+            while (System.nanoTime() < until) {
+                if (TiredExecutor.cancellationRequested()) {
+                    sawCancel.set(true);
+                    return;
+                }
+            }
+        }, () -> {
+            try {
+                slowStarted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("failed");
+        });
+        long start = System.nanoTime();
+
+        assertThrows(IllegalStateException.class, () -> executor.submitAll(tasks));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+
+        executor.shutdown();
+        assertTrue(sawCancel.get(), "running task should observe the cancel flag");
+    }
+
+    @Test
+    void testSubmitAll_Timeout_ThrowsCancellation() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        assertThrows(CancellationException.class, () -> executor.submitAll(sleepingTasks(5, 50),
+                TaskPriority.NORMAL, TiredExecutor.NO_DEADLINE, 20));
+        executor.shutdown();
+
+        assertTrue(executor.getTasksCompleted() < 5);
+    }
+
+    @Test
+    void testCancellationRequested_OutsideTask_IsFalse() {
+        assertFalse(TiredExecutor.cancellationRequested());
+    }
+
+    // Tests for Nested Submission
+
+    @Test
+    void testSubmitAll_NestedOnSingleWorker_DoesNotDeadlock() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        AtomicInteger innerExecuted = new AtomicInteger(0);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> executor.submitAll(List.of(() -> {
+            List<Runnable> inner = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                inner.add(innerExecuted::incrementAndGet);
+            }
+            executor.submitAll(inner);
+        })));
+        executor.shutdown();
+
+        assertEquals(4, innerExecuted.get());
+        assertEquals(4, executor.getHelpedCount());
+    }
+
+    @Test
+    void testSubmitAll_LargeNestedBatch_EveryTaskRunsOnce() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+        int[] runs = new int[20_000];
+
+        // helpers claim from the batch in O(1); the queued copies they ran are no-ops
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executor.submitAll(List.of(() -> {
+            List<Runnable> inner = new ArrayList<>();
+            for (int i = 0; i < runs.length; i++) {
+                final int index = i;
+                inner.add(() -> runs[index]++);
+            }
+            executor.submitAll(inner);
+        })));
+        executor.shutdown();
+
+        for (int i = 0; i < runs.length; i++) {
+            assertEquals(1, runs[i], "task " + i);
+        }
+    }
+
+    @Test
+    void testParallelFor_RecursiveSplit_VisitsEveryIndexOnce() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+        int[] visits = new int[1000];
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executor.submitAll(List.of(
+                () -> executor.parallelFor(0, visits.length, 16, i -> visits[i]++))));
+        executor.shutdown();
+
+        for (int i = 0; i < visits.length; i++) {
+            assertEquals(1, visits[i], "index " + i);
+        }
+    }
+
+    @Test
+    void testSubmit_NestedWithFullBlockingQueue_RunsOnWorker() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+        executor.setAdmissionControl(1, OverflowPolicy.BLOCK, 0);
+        AtomicInteger innerExecuted = new AtomicInteger(0);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> executor.submitAll(List.of(() -> {
+            List<Runnable> inner = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                inner.add(innerExecuted::incrementAndGet);
+            }
+            executor.submitAll(inner);
+        })));
+        executor.shutdown();
+
+        assertEquals(3, innerExecuted.get());
+    }
+
+    // Tests for Ranged Work
+
+    @Test
+    void testSubmitRanges_BothPolicies_VisitEveryIndexOnce() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+
+        for (ChunkPolicy policy : ChunkPolicy.values()) {
+            AtomicInteger[] visits = new AtomicInteger[500];
+            for (int i = 0; i < visits.length; i++) {
+                visits[i] = new AtomicInteger(0);
+            }
+            executor.submitRanges(visits.length, 1.0, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    visits[i].incrementAndGet();
+                }
+            }, policy);
+            for (int i = 0; i < visits.length; i++) {
+                assertEquals(1, visits[i].get(), policy + " index " + i);
+            }
+        }
+        executor.shutdown();
+
+        String report = executor.getWorkerReport();
+        assertTrue(report.contains("Chunking [EQUAL] | Batches: 1"));
+        assertTrue(report.contains("Chunking [THROUGHPUT] | Batches: 1"));
+    }
+
+    @Test
+    void testSubmitRanges_Throughput_UsesFewTasksAndMeasuresWorkers() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2);
+
+        executor.submitRanges(100, 10.0, (from, to) -> {
+            try {
+                Thread.sleep(to - from);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, ChunkPolicy.THROUGHPUT);
+        executor.shutdown();
+
+        assertTrue(executor.getTasksCompleted() <= 2);
+        double[] rates = executor.getWorkerTasksPerSecond();
+        assertEquals(2, rates.length);
+        assertTrue(executor.getWorkerReport().contains("Throughput: "));
+    }
+
+    @Test
+    void testSubmitRanges_InvalidArguments_ThrowException() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.submitRanges(10, 0.0, (from, to) -> {
+                }, ChunkPolicy.EQUAL));
+        assertThrows(IllegalArgumentException.class,
+                () -> executor.submitRanges(10, 1.0, (from, to) -> {
+                }, null));
+        executor.shutdown();
+    }
+
+    // Tests for Ring Dispatch
+
+    @Test
+    void testRing_SubmitAll_RunsEveryTask() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(4, HandoffMode.SPIN_THEN_PARK, DispatchMode.RING, 64);
+        AtomicInteger executed = new AtomicInteger(0);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(executed::incrementAndGet);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executor.submitAll(tasks));
+        executor.shutdown();
+
+        assertEquals(1000, executed.get());
+        assertEquals(1000, executor.getTasksCompleted());
+        assertEquals(0, executor.getInFlight());
+        assertTrue(executor.getWorkerReport().contains("Dispatch: RING"));
+    }
+
+    @Test
+    void testRing_Shutdown_DrainsQueuedTasks() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(2, HandoffMode.BLOCKING, DispatchMode.RING);
+        AtomicInteger executed = new AtomicInteger(0);
+
+        for (int i = 0; i < 20; i++) {
+            executor.submit(() -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executed.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+
+        assertEquals(20, executed.get());
+        assertEquals(0, executor.getPoolSize());
+        assertThrows(IllegalStateException.class, () -> executor.submit(() -> {
+        }));
+    }
+
+    @Test
+    void testRing_FullRing_AppliesOverflowPolicy() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, HandoffMode.BLOCKING, DispatchMode.RING, 2);
+        executor.setAdmissionControl(2, OverflowPolicy.REJECT, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        executor.submit(() -> {
+        });
+        executor.submit(() -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+        }));
+        assertEquals(2, executor.getQueueDepth());
+        assertEquals(2, executor.getQueueCapacity());
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testRing_NestedSubmitAll_DoesNotDeadlock() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, HandoffMode.BLOCKING, DispatchMode.RING);
+        AtomicInteger innerExecuted = new AtomicInteger(0);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> executor.submitAll(List.of(() -> {
+            List<Runnable> inner = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                inner.add(innerExecuted::incrementAndGet);
+            }
+            executor.submitAll(inner);
+        })));
+        executor.shutdown();
+
+        assertEquals(4, innerExecuted.get());
+        assertEquals(4, executor.getHelpedCount());
+    }
+
+    @Test
+    void testRing_NestedSubmitAll_HelpsOnlyWithOwnBatch() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1, HandoffMode.BLOCKING, DispatchMode.RING);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.submit(() -> {
+            // queued ahead of the batch, but belongs to no batch we wait for
+            executor.submit(() -> {
+                order.add("foreign");
+                done.countDown();
+            });
+            executor.submitAll(List.of(() -> order.add("own"), () -> order.add("own")));
+        });
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(List.of("own", "own", "foreign"), order);
+        assertEquals(2, executor.getHelpedCount());
+    }
+
+    @Test
+    void testRing_InvalidCapacity_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TiredExecutor(1, HandoffMode.BLOCKING, DispatchMode.RING, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TiredExecutor(1, HandoffMode.BLOCKING, null));
+    }
+
+    // Tests for Scheduling Policies
+
+    @Test
+    void testPolicies_AllBuiltIns_RunEveryTaskAndReport() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(3);
+        String[] names = { "least-fatigue", "round-robin", "power-of-two", "locality-sticky",
+                "throughput-weighted" };
+
+        for (String name : names) {
+            executor.setSchedulingPolicy(SchedulingPolicy.forName(name));
+            AtomicInteger executed = new AtomicInteger(0);
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                tasks.add(executed::incrementAndGet);
+            }
+            executor.submitAll(tasks);
+            assertEquals(30, executed.get(), name);
+            assertEquals(name, executor.getSchedulingPolicy().getName());
+        }
+        executor.shutdown();
+
+        String report = executor.getWorkerReport();
+        for (String name : names) {
+            assertTrue(report.contains("Policy [" + name + "] | Tasks: 30 | Batches: 1"), name);
+        }
+    }
+
+    @Test
+    void testRoundRobin_SelectsWorkersInTurn() {
+        TiredThread w0 = new TiredThread(0, 1.0);
+        TiredThread w1 = new TiredThread(1, 1.0);
+        TiredThread w2 = new TiredThread(2, 1.0);
+        List<TiredThread> idle = List.of(w2, w0, w1);
+        SchedulingPolicy policy = new RoundRobinPolicy();
+
+        assertEquals(w0, policy.select(idle, null));
+        assertEquals(w1, policy.select(idle, null));
+        assertEquals(w2, policy.select(idle, null));
+        assertEquals(w0, policy.select(idle, null));
+        assertEquals(w2, policy.select(List.of(w2), null));
+    }
+
+    @Test
+    void testLocalitySticky_PrefersLastWorkerOfSameKey() {
+        TiredThread w0 = new TiredThread(0, 1.0);
+        TiredThread w1 = new TiredThread(1, 1.0);
+        SchedulingPolicy policy = new LocalityStickyPolicy();
+        Object key = new Object();
+
+        assertEquals(w1, policy.select(List.of(w1), key));
+        assertEquals(w1, policy.select(List.of(w0, w1), key));
+        assertEquals(w0, policy.select(List.of(w0), key));
+        assertEquals(w0, policy.select(List.of(w1, w0), key));
+    }
+
+    @Test
+    void testPolicies_UnknownNameOrNull_ThrowsException() throws InterruptedException {
+        TiredExecutor executor = new TiredExecutor(1);
+
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPolicy.forName("fastest"));
+        assertThrows(IllegalArgumentException.class, () -> executor.setSchedulingPolicy(null));
+        executor.shutdown();
+    }
 }
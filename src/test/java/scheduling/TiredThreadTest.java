@@ -541,4 +541,63 @@ public class TiredThreadTest {
         worker.join();
     }
 
-}
\ No newline at end of file
+    // Tests for Handoff Modes
+
+    @Test
+    void testHandoffMode_DefaultIsBlocking() {
+        TiredThread worker = new TiredThread(1, 1.0);
+
+        assertEquals(HandoffMode.BLOCKING, worker.getHandoffMode());
+    }
+
+    @Test
+    void testHandoffMode_NullMode_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TiredThread(1, 1.0, null));
+    }
+
+    @Test
+    void testHandoffMode_SpinThenPark_ExecutesTasksAndCountsIdleTime() throws InterruptedException {
+        TiredThread worker = new TiredThread(1, 1.0, HandoffMode.SPIN_THEN_PARK);
+        AtomicBoolean executed = new AtomicBoolean(false);
+
+        worker.start();
+        Thread.sleep(50); // long enough to spin, yield and park
+        worker.newTask(() -> executed.set(true));
+        Thread.sleep(50);
+
+        assertTrue(executed.get());
+        assertTrue(worker.getTimeIdle() > 0);
+
+        worker.shutdown();
+        worker.join(1000);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    void testHandoffMode_Spin_ShutdownWhileSpinning() throws InterruptedException {
+        TiredThread worker = new TiredThread(1, 1.0, HandoffMode.SPIN);
+
+        worker.start();
+        worker.shutdown();
+        worker.join(1000);
+
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    void testHandoffMode_SwitchAtRuntime() throws InterruptedException {
+        TiredThread worker = new TiredThread(1, 1.0, HandoffMode.SPIN);
+        AtomicBoolean executed = new AtomicBoolean(false);
+
+        worker.start();
+        worker.setHandoffMode(HandoffMode.BLOCKING);
+        worker.newTask(() -> executed.set(true));
+        Thread.sleep(50);
+
+        assertTrue(executed.get());
+        assertEquals(HandoffMode.BLOCKING, worker.getHandoffMode());
+
+        worker.shutdown();
+        worker.join();
+    }
+}
@@ -0,0 +1,91 @@
+package spl.lae;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+public class IncrementalEvaluatorTest {
+
+    private static void assertMatrixEquals(double[][] expected, double[][] actual) {
+        assertEquals(expected.length, actual.length, "Row count mismatch");
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i], 0.0001, "Row " + i + " mismatch");
+        }
+    }
+
+    @Test
+    void testEvaluate_ReplacedLeaf_OnlyAncestorsRecomputed() {
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            ComputationNode c = new ComputationNode(new double[][] { { 1, 1 }, { 1, 1 } });
+            ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                            new ComputationNode(new double[][] { { 1, 2 }, { 3, 4 } }),
+                            new ComputationNode(new double[][] { { 1, 0 }, { 0, 1 } }))),
+                    c));
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(engine, root);
+
+            assertMatrixEquals(new double[][] { { 2, 3 }, { 4, 5 } }, evaluator.evaluate());
+            assertEquals(2, evaluator.getNodesRecomputed());
+
+            evaluator.replaceLeaf(c, new double[][] { { 10, 10 }, { 10, 10 } });
+
+            assertEquals(1, evaluator.getVersion(c));
+            assertMatrixEquals(new double[][] { { 11, 12 }, { 13, 14 } }, evaluator.evaluate());
+            assertEquals(1, evaluator.getNodesRecomputed());
+            assertEquals(1, evaluator.getNodesReused());
+            // nothing changed since
+            evaluator.evaluate();
+            assertEquals(0, evaluator.getNodesRecomputed());
+            assertEquals(2, evaluator.getNodesReused());
+        }
+    }
+
+    @Test
+    void testEvaluate_FewOperandsOfWideSum_DeltaUpdated() {
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            List<ComputationNode> leaves = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) {
+                leaves.add(new ComputationNode(new double[][] { { i } }));
+            }
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(engine,
+                    new ComputationNode(ComputationNodeType.ADD, leaves));
+            assertMatrixEquals(new double[][] { { 15 } }, evaluator.evaluate());
+
+            for (int v = 1; v <= IncrementalEvaluator.MAX_DELTA_UPDATES + 1; v++) {
+                evaluator.replaceLeaf(leaves.get(2), new double[][] { { 10 * v } });
+
+                assertMatrixEquals(new double[][] { { 12 + 10 * v } }, evaluator.evaluate());
+                // summed afresh once the deltas in a row reach the limit
+                assertEquals(v <= IncrementalEvaluator.MAX_DELTA_UPDATES ? 1 : 0, evaluator.getDeltaUpdates());
+            }
+        }
+    }
+
+    @Test
+    void testEvaluate_FailingNode_StaysDirtyUntilFixed() {
+        try (LinearAlgebraEngine engine = new LinearAlgebraEngine(2, true)) {
+            ComputationNode a = new ComputationNode(new double[][] { { 1, 2 } });
+            ComputationNode b = new ComputationNode(new double[][] { { 3, 4 } });
+            ComputationNode root = new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(
+                    new ComputationNode(ComputationNodeType.ADD, List.of(a, b))));
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(engine, root);
+            evaluator.evaluate();
+
+            evaluator.replaceLeaf(b, new double[][] { { 3 }, { 4 } });
+            assertThrows(IllegalArgumentException.class, evaluator::evaluate);
+
+            evaluator.replaceLeaf(b, new double[][] { { 5, 6 } });
+            assertMatrixEquals(new double[][] { { 6 }, { 8 } }, evaluator.evaluate());
+            assertEquals(2, evaluator.getVersion(b));
+            assertThrows(IllegalArgumentException.class, () -> evaluator.replaceLeaf(root, new double[][] { { 1 } }));
+        }
+    }
+}
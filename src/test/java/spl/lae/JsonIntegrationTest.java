@@ -3,7 +3,9 @@ package spl.lae;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.TestFactory;
+import parser.CommonSubexpressionEliminator;
 import parser.ComputationNode;
+import parser.ExpressionRewriter;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,6 +29,18 @@ class JsonIntegrationTest {
 
     @TestFactory
     Stream<DynamicTest> testAllJsonFiles() {
+        return jsonTests(false);
+    }
+
+    /**
+     * Same cases after the rewriter and CSE, which must not change any result.
+     */
+    @TestFactory
+    Stream<DynamicTest> testAllJsonFilesOptimized() {
+        return jsonTests(true);
+    }
+
+    private Stream<DynamicTest> jsonTests(boolean optimize) {
         File resourcesDir = new File("resources");
         
         if (!resourcesDir.exists() || !resourcesDir.isDirectory()) {
@@ -45,8 +59,8 @@ class JsonIntegrationTest {
         
         for (File jsonFile : jsonFiles) {
             DynamicTest test = DynamicTest.dynamicTest(
-                jsonFile.getName(),
-                () -> runTestCase(jsonFile)
+                jsonFile.getName() + (optimize ? " [optimized]" : ""),
+                () -> runTestCase(jsonFile, optimize)
             );
             tests.add(test);
         }
@@ -54,7 +68,15 @@ class JsonIntegrationTest {
         return tests.stream();
     }
 
-    private void runTestCase(File jsonFile) throws Exception {
+    private ComputationNode buildTree(TestCase testCase, boolean optimize) throws Exception {
+        ComputationNode root = parser.buildComputationTree(testCase);
+        if (optimize) {
+            root = new CommonSubexpressionEliminator().eliminate(new ExpressionRewriter().rewrite(root));
+        }
+        return root;
+    }
+
+    private void runTestCase(File jsonFile, boolean optimize) throws Exception {
         // Create a fresh engine for each test
         engine = new LinearAlgebraEngine(4);
 
@@ -69,13 +91,13 @@ class JsonIntegrationTest {
         if (testCase.isExpectError()) {
             // Test should throw an exception
             assertThrows(Exception.class, () -> {
-                ComputationNode root = parser.buildComputationTree(testCase);
+                ComputationNode root = buildTree(testCase, optimize);
                 engine.run(root);
             }, "Expected " + jsonFile.getName() + " to throw an exception");
         } else {
             // Test should execute successfully
             try {
-                ComputationNode root = parser.buildComputationTree(testCase);
+                ComputationNode root = buildTree(testCase, optimize);
                 ComputationNode result = engine.run(root);
                 
                 assertNotNull(result, "Result should not be null for " + jsonFile.getName());
@@ -1,8 +1,14 @@
 package spl.lae;
 
 import org.junit.jupiter.api.Test;
+import memory.SharedVector;
+import memory.VectorOrientation;
 import parser.*;
+import scheduling.ChunkPolicy;
+import scheduling.TiredExecutor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -423,6 +429,786 @@ class LinearAlgebraEngineTest {
         });
     }
 
+    // ========================
+    // 9. Reusable Engine
+    // ========================
+
+    @Test
+    void testReusableEngine_RunsManyJobs() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true)) {
+            double[][] m1 = {{1, 2}, {3, 4}};
+            double[][] m2 = {{1, 1}, {1, 1}};
+            for (int i = 0; i < 5; i++) {
+                ComputationNode root = new ComputationNode(ComputationNodeType.ADD,
+                        List.of(new ComputationNode(m1), new ComputationNode(m2)));
+                reusable.run(root);
+                assertMatrixEquals(new double[][]{{2, 3}, {4, 5}}, root.getMatrix());
+            }
+        }
+    }
+
+    @Test
+    void testReusableEngine_RunAfterClose_Throws() {
+        LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true);
+        reusable.close();
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD,
+                List.of(new ComputationNode(new double[][]{{1}}), new ComputationNode(new double[][]{{2}})));
+        assertThrows(RuntimeException.class, () -> reusable.run(root));
+    }
+
+    @Test
+    void testSharedExecutor_ConcurrentRuns() throws Exception {
+        TiredExecutor executor = new TiredExecutor(3);
+        LinearAlgebraEngine shared = new LinearAlgebraEngine(executor);
+        double[][] m1 = {{1, 2}, {3, 4}};
+        double[][] m2 = {{2, 0}, {1, 3}};
+        Thread[] callers = new Thread[4];
+        ComputationNode[] roots = new ComputationNode[callers.length];
+        for (int i = 0; i < callers.length; i++) {
+            roots[i] = new ComputationNode(ComputationNodeType.MULTIPLY,
+                    List.of(new ComputationNode(m1), new ComputationNode(m2)));
+            final ComputationNode root = roots[i];
+            callers[i] = new Thread(() -> shared.run(root));
+            callers[i].start();
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        for (ComputationNode root : roots) {
+            assertMatrixEquals(new double[][]{{4, 6}, {10, 12}}, root.getMatrix());
+        }
+        shared.close();
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+    }
+
+    @Test
+    void testJobStats_CountsNodesAndTasks() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] m1 = {{1, 2}, {3, 4}};
+        ComputationNode add = new ComputationNode(ComputationNodeType.ADD,
+                List.of(new ComputationNode(m1), new ComputationNode(m1)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.NEGATE, List.of(add));
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertEquals(2, stats.getNodesResolved());
+        // the negated sum is one fused kernel, one task per row
+        assertEquals(2, stats.getNodesFused());
+        assertEquals(2, stats.getTasksSubmitted());
+        assertTrue(stats.getWallTime() > 0);
+    }
+
+    @Test
+    void testReusableEngine_FailedJobDoesNotBreakLaterJobs() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true)) {
+            ComputationNode bad = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(new double[][]{{1, 2}}), new ComputationNode(new double[][]{{1}, {2}})));
+            assertThrows(IllegalArgumentException.class, () -> reusable.run(bad));
+
+            ComputationNode good = new ComputationNode(ComputationNodeType.NEGATE,
+                    List.of(new ComputationNode(new double[][]{{1, 2}})));
+            reusable.run(good);
+            assertMatrixEquals(new double[][]{{-1, -2}}, good.getMatrix());
+        }
+    }
+
+    @Test
+    void testThroughputChunking_SameResultAsEqual() {
+        double[][] m1 = {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}, {1, 0, 1}};
+        double[][] m2 = {{1, 0}, {0, 1}, {2, 2}};
+        double[][] expected = {{7, 8}, {16, 17}, {25, 26}, {3, 2}};
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            for (ChunkPolicy policy : ChunkPolicy.values()) {
+                reusable.setChunkPolicy(policy);
+                ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY,
+                        List.of(new ComputationNode(m1), new ComputationNode(m2)));
+                reusable.run(root);
+                assertMatrixEquals(expected, root.getMatrix());
+            }
+            assertTrue(reusable.getWorkerReport().contains("Chunking [THROUGHPUT] | Batches: 1"));
+        }
+    }
+
+    // ========================
+    // Parallel Evaluation Tests
+    // ========================
+
+    @Test
+    void testRun_IndependentProducts_ComputedConcurrently() {
+        engine = new LinearAlgebraEngine(4);
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] b = {{0, 1}, {1, 0}};
+        ComputationNode left = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(a), new ComputationNode(b)));
+        ComputationNode right = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(b), new ComputationNode(a)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(left, right));
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{5, 5}, {5, 5}}, root.getMatrix());
+        assertEquals(3, stats.getNodesResolved());
+        assertEquals(2, stats.getPeakNodesInFlight());
+    }
+
+    @Test
+    void testRun_WideTree_EveryLeafOperationResolved() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            for (ChunkPolicy policy : ChunkPolicy.values()) {
+                reusable.setChunkPolicy(policy);
+                List<ComputationNode> products = new ArrayList<>();
+                for (int i = 1; i <= 8; i++) {
+                    products.add(new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                            new ComputationNode(new double[][]{{i, 2 * i}}),
+                            new ComputationNode(new double[][]{{-1, 0}, {0, -1}}))));
+                }
+                ComputationNode root = new ComputationNode(ComputationNodeType.ADD, products);
+                JobStats stats = new JobStats();
+
+                reusable.run(root, stats);
+
+                assertMatrixEquals(new double[][]{{-36, -72}}, root.getMatrix());
+                assertEquals(9, stats.getNodesResolved());
+                assertTrue(stats.getPeakNodesInFlight() >= 8);
+            }
+        }
+    }
+
+    @Test
+    void testRun_FailingBranch_FailsJob() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true)) {
+            ComputationNode bad = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(new double[][]{{1, 2}}), new ComputationNode(new double[][]{{1}, {2}})));
+            ComputationNode good = new ComputationNode(ComputationNodeType.NEGATE,
+                    List.of(new ComputationNode(new double[][]{{1, 2}})));
+            ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(good, bad));
+
+            assertThrows(IllegalArgumentException.class, () -> reusable.run(root));
+            assertEquals(ComputationNodeType.ADD, root.getNodeType());
+        }
+    }
+
+    @Test
+    void testRun_NestedNaryOperation_NestedBelowRoot() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] m = {{1, 2}};
+        ComputationNode sum = new ComputationNode(ComputationNodeType.ADD, new ArrayList<>(List.of(
+                new ComputationNode(m), new ComputationNode(m), new ComputationNode(m), new ComputationNode(m))));
+        ComputationNode root = new ComputationNode(ComputationNodeType.NEGATE, List.of(sum));
+
+        engine.run(root);
+
+        assertMatrixEquals(new double[][]{{-4, -8}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_DeepChain_NoStackOverflow() {
+        engine = new LinearAlgebraEngine(1);
+        ComputationNode root = new ComputationNode(new double[][]{{1, -1}});
+        int depth = 20_000;
+        for (int i = 0; i < depth; i++) {
+            root = new ComputationNode(ComputationNodeType.NEGATE, List.of(root));
+        }
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{1, -1}}, root.getMatrix());
+        assertEquals(depth, stats.getNodesResolved());
+    }
+
+    @Test
+    void testRun_SharedSubexpression_ComputedOnce() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] b = {{0, 1}, {1, 0}};
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, new ArrayList<>(List.of(
+                new ComputationNode(ComputationNodeType.MULTIPLY,
+                        List.of(new ComputationNode(a), new ComputationNode(b))),
+                new ComputationNode(ComputationNodeType.MULTIPLY,
+                        List.of(new ComputationNode(a), new ComputationNode(b))),
+                new ComputationNode(ComputationNodeType.MULTIPLY,
+                        List.of(new ComputationNode(a), new ComputationNode(b))))));
+        root = new CommonSubexpressionEliminator().eliminate(root);
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{6, 3}, {12, 9}}, root.getMatrix());
+        // one product and the three-way sum
+        assertEquals(2, stats.getNodesResolved());
+    }
+
+    @Test
+    void testRun_Subtract_ComputesDifference() {
+        engine = new LinearAlgebraEngine(2);
+        ComputationNode root = new ComputationNode(ComputationNodeType.SUBTRACT, List.of(
+                new ComputationNode(new double[][]{{5, 7}, {1, 0}}),
+                new ComputationNode(new double[][]{{1, 2}, {3, 4}})));
+
+        engine.run(root);
+
+        assertMatrixEquals(new double[][]{{4, 5}, {-2, -4}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_MultiplyChain_ReorderedSameResult() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1}, {2}, {3}};
+        double[][] b = {{1, 2, 3}};
+        double[][] c = {{1}, {0}, {1}};
+        ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY, new ArrayList<>(List.of(
+                new ComputationNode(a), new ComputationNode(b), new ComputationNode(c))));
+
+        engine.run(root);
+
+        // A * (B * C) = A * [4]
+        assertMatrixEquals(new double[][]{{4}, {8}, {12}}, root.getMatrix());
+    }
+
+    // ========================
+    // Fused Elementwise Tests
+    // ========================
+
+    @Test
+    void testRun_ElementwiseChain_FusedIntoOneKernel() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] b = {{5, 6}, {7, 8}};
+        double[][] c = {{1, 1}, {1, 1}};
+        // A + (-B) + C^T + (-(A^T))
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, new ArrayList<>(List.of(
+                new ComputationNode(a),
+                new ComputationNode(ComputationNodeType.NEGATE, List.of(new ComputationNode(b))),
+                new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(new ComputationNode(c))),
+                new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                        new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(new ComputationNode(a))))))));
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{-4, -6}, {-5, -7}}, root.getMatrix());
+        // the four-way addition, two negations and two transposes in one pass
+        assertEquals(5, stats.getNodesFused());
+        assertEquals(5, stats.getNodesResolved());
+        assertEquals(2, stats.getTasksSubmitted());
+    }
+
+    @Test
+    void testRun_TransposedNonSquareChain_RemapsIndices() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2, 3}};
+        double[][] b = {{1}, {1}, {1}};
+        // (A^T - B)^T is a 1x3 row
+        ComputationNode diff = new ComputationNode(ComputationNodeType.SUBTRACT, List.of(
+                new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(new ComputationNode(a))),
+                new ComputationNode(b)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(diff));
+
+        engine.run(root);
+
+        assertMatrixEquals(new double[][]{{0, 1, 2}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_ResidentKernelInputs_ReadInPlace() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] b = {{0, 1}, {1, 0}};
+        // the product is resident and row-major; the kernel reads it both ways round
+        ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                new ComputationNode(a), new ComputationNode(b)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, new ArrayList<>(List.of(
+                product,
+                new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(product)),
+                new ComputationNode(a))));
+
+        engine.run(root);
+
+        // A * B = [[2, 1], [4, 3]]
+        assertMatrixEquals(new double[][]{{5, 7}, {8, 10}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_SharedElementwiseNode_NotFusedIntoUsers() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}};
+        ComputationNode shared = new ComputationNode(ComputationNodeType.NEGATE, List.of(new ComputationNode(a)));
+        ComputationNode left = new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(
+                new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(shared))));
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(left, shared));
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{-2, -4}}, root.getMatrix());
+        // the negation is computed once on its own; the rest is one kernel
+        assertEquals(4, stats.getNodesResolved());
+        assertEquals(3, stats.getNodesFused());
+    }
+
+    @Test
+    void testRun_FusedChainMismatchedShapes_Throws() {
+        engine = new LinearAlgebraEngine(2);
+        ComputationNode root = new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                new ComputationNode(ComputationNodeType.ADD, List.of(
+                        new ComputationNode(new double[][]{{1, 2}}),
+                        new ComputationNode(new double[][]{{1}, {2}})))));
+
+        assertThrows(IllegalArgumentException.class, () -> engine.run(root));
+    }
+
+    @Test
+    void testRun_ManyOperandAdd_OneKWayPass() {
+        engine = new LinearAlgebraEngine(2);
+        List<ComputationNode> operands = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            operands.add(new ComputationNode(new double[][]{{i, -i}, {2 * i, 0}}));
+        }
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, operands);
+        JobStats stats = new JobStats();
+
+        engine.run(root, stats);
+
+        assertMatrixEquals(new double[][]{{210, -210}, {420, 0}}, root.getMatrix());
+        // one node, one task per output row
+        assertEquals(1, stats.getNodesResolved());
+        assertEquals(2, stats.getTasksSubmitted());
+    }
+
+    @Test
+    void testLoadAndCompute_ThreeOperandAdd_SumsAll() {
+        engine = new LinearAlgebraEngine(2);
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(
+                new ComputationNode(new double[][]{{1, 2}}), new ComputationNode(new double[][]{{3, 4}}),
+                new ComputationNode(new double[][]{{5, 6}})));
+
+        engine.loadAndCompute(root);
+
+        assertMatrixEquals(new double[][]{{9, 12}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_ManyOperandAdd_AccessChecksEnabled() {
+        boolean checks = SharedVector.isAccessChecked();
+        SharedVector.setAccessChecks(true);
+        try {
+            engine = new LinearAlgebraEngine(4);
+            double[][] a = {{1, 2}, {3, 4}, {5, 6}, {7, 8}, {9, 10}, {11, 12}};
+            ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(a), new ComputationNode(a), new ComputationNode(a)));
+
+            // each output row is owned by the one task that writes it
+            engine.run(root);
+
+            assertMatrixEquals(new double[][]{{3, 6}, {9, 12}, {15, 18}, {21, 24}, {27, 30}, {33, 36}},
+                    root.getMatrix());
+        } finally {
+            SharedVector.setAccessChecks(checks);
+        }
+    }
+
+    // ========================
+    // Resident Result Tests
+    // ========================
+
+    @Test
+    void testRun_TransposeFeedsProduct_ResultStaysResident() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2, 3}, {4, 5, 6}};
+        ComputationNode transposed = new ComputationNode(ComputationNodeType.TRANSPOSE,
+                List.of(new ComputationNode(a)));
+        ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(a), transposed));
+
+        engine.run(root);
+
+        assertNotNull(root.getSharedMatrix());
+        assertMatrixEquals(new double[][]{{14, 32}, {32, 77}}, root.getMatrix());
+        // flattened once, the resident copy is dropped
+        assertNull(root.getSharedMatrix());
+    }
+
+    @Test
+    void testRun_FusedKernel_ResultStaysResident() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}, {3, 4}};
+        ComputationNode root = new ComputationNode(ComputationNodeType.ADD, new ArrayList<>(List.of(
+                new ComputationNode(a), new ComputationNode(a), new ComputationNode(a))));
+
+        engine.run(root);
+
+        assertNotNull(root.getSharedMatrix());
+        assertEquals(VectorOrientation.ROW_MAJOR, root.getSharedMatrix().getOrientation());
+        assertMatrixEquals(new double[][]{{3, 6}, {9, 12}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_SharedIntermediateBothOperands_NotOverwritten() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 1}, {0, 1}};
+        ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(a), new ComputationNode(a)));
+        // (A*A) * (A*A) with a single node for A*A
+        ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(product, product));
+
+        engine.run(root);
+
+        assertMatrixEquals(new double[][]{{1, 4}, {0, 1}}, root.getMatrix());
+    }
+
+    @Test
+    void testRun_ProductChain_LeftOperandReusedInPlace() {
+        engine = new LinearAlgebraEngine(2);
+        double[][] a = {{1, 2}, {3, 4}};
+        double[][] id = {{1, 0}, {0, 1}};
+        ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY, new ArrayList<>(List.of(
+                new ComputationNode(a), new ComputationNode(id), new ComputationNode(id), new ComputationNode(a))));
+
+        engine.run(root);
+
+        assertMatrixEquals(new double[][]{{7, 10}, {15, 22}}, root.getMatrix());
+        // inputs are never written
+        assertMatrixEquals(new double[][]{{1, 2}, {3, 4}}, a);
+    }
+
+    @Test
+    void testRun_AccessChecksEnabled_LockFreeKernelsStayConsistent() {
+        boolean checks = SharedVector.isAccessChecked();
+        SharedVector.setAccessChecks(true);
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            double[][] a = {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}, {1, 0, 1}};
+            for (ChunkPolicy policy : ChunkPolicy.values()) {
+                reusable.setChunkPolicy(policy);
+                ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                        new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(new ComputationNode(a))),
+                        new ComputationNode(a)));
+                // the product is read twice, so it is frozen when resolved
+                ComputationNode root = new ComputationNode(ComputationNodeType.ADD, List.of(product, product));
+
+                reusable.run(root);
+
+                assertMatrixEquals(new double[][]{{134, 156, 182}, {156, 186, 216}, {182, 216, 254}},
+                        root.getMatrix());
+
+                // -(A + B) is one fused kernel writing into a resident output
+                ComputationNode fused = new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                        new ComputationNode(ComputationNodeType.ADD, List.of(
+                                new ComputationNode(a), new ComputationNode(a)))));
+
+                reusable.run(fused);
+
+                assertMatrixEquals(new double[][]{{-2, -4, -6}, {-8, -10, -12}, {-14, -16, -18}, {-2, 0, -2}},
+                        fused.getMatrix());
+            }
+        } finally {
+            SharedVector.setAccessChecks(checks);
+        }
+    }
+
+    @Test
+    void testRun_AccessChecksEnabled_EveryKernelTypeRuns() {
+        boolean checks = SharedVector.isAccessChecked();
+        SharedVector.setAccessChecks(true);
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(4, true)) {
+            // dispatching is free, so no node runs inline and the few-row product is tiled
+            reusable.setCostModel(new CostModel(1.0, 0.0, 0.0));
+            double[][] a = {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}, {1, 0, 1}};
+            double[][] id = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+            double[][] twice = {{2, 0, 0}, {0, 2, 0}, {0, 0, 2}};
+            double[][] aT = {{1, 4, 7, 1}, {2, 5, 8, 0}, {3, 6, 9, 1}};
+            for (ChunkPolicy policy : ChunkPolicy.values()) {
+                reusable.setChunkPolicy(policy);
+
+                // fused kernel
+                ComputationNode fused = new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                        new ComputationNode(ComputationNodeType.ADD, List.of(
+                                new ComputationNode(a), new ComputationNode(a)))));
+                JobStats stats = new JobStats();
+                reusable.run(fused, stats);
+                assertMatrixEquals(new double[][]{{-2, -4, -6}, {-8, -10, -12}, {-14, -16, -18}, {-2, 0, -2}},
+                        fused.getMatrix());
+                assertEquals(2, stats.getNodesFused());
+
+                // k-way ADD
+                ComputationNode sum = new ComputationNode(ComputationNodeType.ADD, List.of(
+                        new ComputationNode(a), new ComputationNode(a), new ComputationNode(a)));
+                reusable.run(sum);
+                assertMatrixEquals(new double[][]{{3, 6, 9}, {12, 15, 18}, {21, 24, 27}, {3, 0, 3}},
+                        sum.getMatrix());
+
+                // tiled multiply
+                ComputationNode tiled = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                        new ComputationNode(new double[][]{{1, 2, 3}}), new ComputationNode(aT)));
+                stats = new JobStats();
+                reusable.run(tiled, stats);
+                assertMatrixEquals(new double[][]{{14, 32, 50, 4}}, tiled.getMatrix());
+                assertEquals(1, stats.getNodesTiled());
+
+                // per-node transpose, negate and SUBTRACT, each over a row-split product
+                ComputationNode transposed = new ComputationNode(ComputationNodeType.TRANSPOSE, List.of(
+                        new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                                new ComputationNode(a), new ComputationNode(id)))));
+                reusable.run(transposed);
+                assertMatrixEquals(aT, transposed.getMatrix());
+
+                ComputationNode negated = new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                        new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                                new ComputationNode(a), new ComputationNode(id)))));
+                reusable.run(negated);
+                assertMatrixEquals(new double[][]{{-1, -2, -3}, {-4, -5, -6}, {-7, -8, -9}, {-1, 0, -1}},
+                        negated.getMatrix());
+
+                ComputationNode difference = new ComputationNode(ComputationNodeType.SUBTRACT, List.of(
+                        new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                                new ComputationNode(a), new ComputationNode(twice))),
+                        new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                                new ComputationNode(a), new ComputationNode(id)))));
+                stats = new JobStats();
+                reusable.run(difference, stats);
+                assertMatrixEquals(a, difference.getMatrix());
+                assertEquals(0, stats.getNodesFused());
+                assertEquals(0, stats.getNodesInline());
+            }
+        } finally {
+            SharedVector.setAccessChecks(checks);
+        }
+    }
+
+    // ========================
+    // Result Cache Tests
+    // ========================
+
+    @Test
+    void testRun_ResultCache_SharedSubtreeNotRecomputedInLaterJob() {
+        ResultCache cache = new ResultCache(1 << 20, EvictionPolicy.LRU);
+        double[][] weights = {{1, 2}, {3, 4}};
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true)) {
+            reusable.setResultCache(cache);
+            JobStats first = new JobStats();
+            ComputationNode job1 = new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                    new ComputationNode(ComputationNodeType.MULTIPLY,
+                            List.of(new ComputationNode(weights), new ComputationNode(weights)))));
+            reusable.run(job1, first);
+
+            JobStats second = new JobStats();
+            ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY,
+                    List.of(new ComputationNode(weights), new ComputationNode(weights)));
+            ComputationNode job2 = new ComputationNode(ComputationNodeType.ADD,
+                    List.of(product, new ComputationNode(new double[][]{{1, 1}, {1, 1}})));
+            reusable.run(job2, second);
+
+            assertMatrixEquals(new double[][]{{-7, -10}, {-15, -22}}, job1.getMatrix());
+            assertMatrixEquals(new double[][]{{8, 11}, {16, 23}}, job2.getMatrix());
+            assertEquals(0, first.getNodesFromCache());
+            assertEquals(1, second.getNodesFromCache());
+            assertEquals(1, second.getNodesResolved());
+            assertEquals(1, cache.getHits());
+            assertEquals(32, cache.getBytesSaved());
+        }
+    }
+
+    @Test
+    void testRun_ResultCache_WholeJobServedFromCache() {
+        ResultCache cache = new ResultCache(1 << 20, EvictionPolicy.LFU);
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(2, true)) {
+            reusable.setResultCache(cache);
+            for (int i = 0; i < 2; i++) {
+                ComputationNode root = new ComputationNode(ComputationNodeType.TRANSPOSE,
+                        List.of(new ComputationNode(new double[][]{{1, 2, 3}})));
+                JobStats stats = new JobStats();
+
+                reusable.run(root, stats);
+
+                assertMatrixEquals(new double[][]{{1}, {2}, {3}}, root.getMatrix());
+                assertEquals(i, stats.getNodesFromCache());
+                assertEquals(i == 0 ? 1 : 0, stats.getTasksSubmitted());
+            }
+        }
+    }
+
+    // ========================
+    // Cost Planner Tests
+    // ========================
+
+    @Test
+    void testCostModel_Calibrated_MeasuredOnce() {
+        CostModel model = CostModel.calibrated();
+
+        assertSame(model, CostModel.calibrated());
+        assertTrue(model.getNanosPerFlop() > 0);
+        assertTrue(model.getDispatchNanos() >= 0);
+        assertThrows(IllegalArgumentException.class, () -> new CostModel(0, 1, 1));
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(1, true)) {
+            // planning is opt-in, so building an engine never calibrates
+            assertNull(reusable.getCostModel());
+        }
+    }
+
+    @Test
+    void testRun_TinyNodes_RunInlineAndBatched() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            // dispatching is so expensive that nothing is worth parallelizing
+            reusable.setCostModel(new CostModel(1.0, 0.0, 1e12));
+            List<ComputationNode> products = new ArrayList<>();
+            for (int i = 1; i <= 8; i++) {
+                products.add(new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                        new ComputationNode(new double[][]{{i, 2 * i}}),
+                        new ComputationNode(new double[][]{{1, 0}, {0, 1}}))));
+            }
+            ComputationNode root = new ComputationNode(ComputationNodeType.ADD, products);
+            JobStats stats = new JobStats();
+
+            reusable.run(root, stats);
+
+            assertMatrixEquals(new double[][]{{36, 72}}, root.getMatrix());
+            // eight products and the fused sum
+            assertEquals(9, stats.getNodesInline());
+            assertEquals(8, stats.getPeakNodesInFlight());
+            assertTrue(reusable.getWorkerReport().contains("Chunking [EQUAL] | Batches: 0"));
+        }
+    }
+
+    @Test
+    void testRun_FewRowProduct_SplitIntoTiles() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            // dispatching is free, so every node is parallelized
+            reusable.setCostModel(new CostModel(1.0, 0.0, 0.0));
+            double[][] row = {{1, 2, 3}};
+            double[][] right = {{1, 0, 0, 1, 2, 0}, {0, 1, 0, 1, 0, 2}, {0, 0, 1, 1, 1, 1}};
+            ComputationNode root = new ComputationNode(ComputationNodeType.MULTIPLY,
+                    List.of(new ComputationNode(row), new ComputationNode(right)));
+            JobStats stats = new JobStats();
+
+            reusable.run(root, stats);
+
+            assertMatrixEquals(new double[][]{{1, 2, 3, 6, 5, 7}}, root.getMatrix());
+            assertEquals(1, stats.getNodesTiled());
+            // one row, split into six column blocks for three workers
+            assertEquals(6, stats.getTasksSubmitted());
+            assertMatrixEquals(new double[][]{{1, 2, 3}}, row);
+        }
+    }
+
+    // ========================
+    // Batch Tests
+    // ========================
+
+    @Test
+    void testRunBatch_FailingJob_OthersStillResolved() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            ComputationNode product = new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                    new ComputationNode(new double[][]{{1, 2}, {3, 4}}),
+                    new ComputationNode(new double[][]{{0, 1}, {1, 0}})));
+            ComputationNode mismatch = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(new double[][]{{1, 2}}),
+                    new ComputationNode(new double[][]{{1}, {2}})));
+            ComputationNode sum = new ComputationNode(ComputationNodeType.ADD, List.of(
+                    new ComputationNode(new double[][]{{1, 1}}),
+                    new ComputationNode(ComputationNodeType.NEGATE, List.of(
+                            new ComputationNode(new double[][]{{3, 5}})))));
+            ComputationNode matrix = new ComputationNode(new double[][]{{7}});
+
+            List<JobResult> results = reusable.runBatch(Arrays.asList(product, mismatch, null, sum, matrix));
+
+            assertEquals(5, results.size());
+            assertTrue(results.get(0).isSuccess());
+            assertMatrixEquals(new double[][]{{2, 1}, {4, 3}}, results.get(0).getMatrix());
+            assertFalse(results.get(1).isSuccess());
+            assertInstanceOf(IllegalArgumentException.class, results.get(1).getFailure());
+            assertThrows(IllegalStateException.class, () -> results.get(1).getMatrix());
+            assertInstanceOf(IllegalArgumentException.class, results.get(2).getFailure());
+            assertMatrixEquals(new double[][]{{-2, -4}}, results.get(3).getMatrix());
+            assertSame(sum, results.get(3).getRoot());
+            assertEquals(2, results.get(3).getStats().getNodesResolved());
+            assertMatrixEquals(new double[][]{{7}}, results.get(4).getMatrix());
+            // the pool is still usable after a failing job
+            assertTrue(reusable.runBatch(List.of()).isEmpty());
+        }
+    }
+
+    @Test
+    void testRunBatch_ManyJobs_SharePoolAndMatchRun() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(4, true)) {
+            List<ComputationNode> roots = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                roots.add(new ComputationNode(ComputationNodeType.ADD, List.of(
+                        new ComputationNode(ComputationNodeType.MULTIPLY, List.of(
+                                new ComputationNode(new double[][]{{i, 0}, {0, i}}),
+                                new ComputationNode(new double[][]{{1, 2}, {3, 4}}))),
+                        new ComputationNode(new double[][]{{i, i}, {i, i}}))));
+            }
+
+            List<JobResult> results = reusable.runBatch(roots);
+
+            for (int i = 1; i <= 10; i++) {
+                JobResult result = results.get(i - 1);
+                assertTrue(result.isSuccess(), result.toString());
+                assertMatrixEquals(new double[][]{{2 * i, 3 * i}, {4 * i, 5 * i}}, result.getMatrix());
+                assertTrue(result.getStats().getWallTime() >= 0);
+            }
+        }
+    }
+
+    @Test
+    void testRunBatch_SingleUseEngine_ShutDownAfterBatch() {
+        LinearAlgebraEngine singleUse = new LinearAlgebraEngine(2);
+        ComputationNode root = new ComputationNode(ComputationNodeType.TRANSPOSE,
+                List.of(new ComputationNode(new double[][]{{1, 2}})));
+
+        List<JobResult> results = singleUse.runBatch(List.of(root));
+
+        assertMatrixEquals(new double[][]{{1}, {2}}, results.get(0).getMatrix());
+        assertThrows(RuntimeException.class, () -> singleUse.runBatch(List.of(root)));
+        assertThrows(IllegalArgumentException.class, () -> singleUse.runBatch(null));
+    }
+
+    // ========================
+    // Power Tests
+    // ========================
+
+    @Test
+    void testRun_Power_MatchesRepeatedProduct() {
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(3, true)) {
+            double[][] a = {{1, 1, 0}, {0, 1, 1}, {1, 0, 1}};
+            for (int k = 1; k <= 9; k++) {
+                List<ComputationNode> copies = new ArrayList<>();
+                for (int i = 0; i < k; i++) {
+                    copies.add(new ComputationNode(a));
+                }
+                ComputationNode expected = k == 1 ? new ComputationNode(a)
+                        : new ComputationNode(ComputationNodeType.MULTIPLY, copies);
+                ComputationNode power = new ComputationNode(ComputationNodeType.POWER,
+                        List.of(new ComputationNode(a)), k);
+                JobStats stats = new JobStats();
+
+                reusable.run(expected);
+                reusable.run(power, stats);
+
+                assertMatrixEquals(expected.getMatrix(), power.getMatrix());
+                // at most two products per bit of k
+                assertTrue(stats.getNodesResolved() <= 2 * (32 - Integer.numberOfLeadingZeros(k)), "k=" + k);
+            }
+            assertMatrixEquals(new double[][]{{1, 1, 0}, {0, 1, 1}, {1, 0, 1}}, a);
+        }
+    }
+
+    @Test
+    void testRun_PowerOfNonSquare_Throws() {
+        ComputationNode power = new ComputationNode("^",
+                List.of(new ComputationNode(new double[][]{{1, 2, 3}})), 2);
+
+        assertThrows(IllegalArgumentException.class, () -> new LinearAlgebraEngine(2).run(power));
+        try (LinearAlgebraEngine reusable = new LinearAlgebraEngine(1, true)) {
+            // a single node cannot stand for the products of a power
+            assertThrows(IllegalArgumentException.class, () -> reusable.loadAndCompute(
+                    new ComputationNode("^", List.of(new ComputationNode(new double[][]{{2}})), 2)));
+        }
+    }
+
     // ========================
     // Helper Methods
     // ========================
@@ -0,0 +1,128 @@
+package spl.lae;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import parser.ComputationNode;
+import parser.ComputationNodeType;
+
+public class ResultCacheTest {
+
+    // one 2x2 matrix of doubles
+    private static final long ENTRY = 32;
+
+    private static double[][] matrix(double value) {
+        return new double[][] { { value, value }, { value, value } };
+    }
+
+    @Test
+    void testKeysOf_EqualSubtreesOfDifferentTrees_SameKey() {
+        ComputationNode first = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(matrix(1)), new ComputationNode(matrix(2))));
+        ComputationNode second = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(matrix(1)), new ComputationNode(matrix(2))));
+        ComputationNode swapped = new ComputationNode(ComputationNodeType.MULTIPLY,
+                List.of(new ComputationNode(matrix(2)), new ComputationNode(matrix(1))));
+
+        Map<ComputationNode, String> keys = ResultCache.keysOf(first);
+
+        assertEquals(keys.get(first), ResultCache.keysOf(second).get(second));
+        assertNotEquals(keys.get(first), ResultCache.keysOf(swapped).get(swapped));
+    }
+
+    @Test
+    void testGet_ReturnsCopyAndCountsHitsAndMisses() {
+        ResultCache cache = new ResultCache(1024, EvictionPolicy.LRU);
+        double[][] result = matrix(3);
+        cache.put("a", result);
+        result[0][0] = 99;
+
+        double[][] hit = cache.get("a");
+        hit[1][1] = 42;
+
+        assertArrayEquals(new double[] { 3, 3 }, cache.get("a")[1]);
+        assertNotSame(hit, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3 * ENTRY, cache.getBytesSaved());
+        assertEquals(0.75, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void testEviction_LruDropsLeastRecentlyUsed() {
+        ResultCache cache = new ResultCache(2 * ENTRY, EvictionPolicy.LRU);
+        cache.put("a", matrix(1));
+        cache.put("b", matrix(2));
+        cache.get("a");
+
+        cache.put("c", matrix(3));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * ENTRY, cache.getBytesInMemory());
+    }
+
+    @Test
+    void testEviction_LfuDropsFewestHits() {
+        ResultCache cache = new ResultCache(2 * ENTRY, EvictionPolicy.LFU);
+        cache.put("a", matrix(1));
+        cache.put("b", matrix(2));
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        // a is the least recently used, but it was hit the most
+
+        cache.put("c", matrix(3));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void testDiskTier_EvictedEntryServedFromDisk(@TempDir Path dir) {
+        ResultCache cache = new ResultCache(ENTRY, EvictionPolicy.LRU, dir, 4 * ENTRY);
+        cache.put("a", matrix(1));
+        cache.put("b", matrix(2));
+        assertEquals(ENTRY, cache.getBytesOnDisk());
+
+        double[][] fromDisk = cache.get("a");
+
+        assertArrayEquals(new double[] { 1, 1 }, fromDisk[0]);
+        assertEquals(1, cache.getDiskHits());
+        // a moved back to memory and pushed b to disk
+        assertArrayEquals(new double[] { 2, 2 }, cache.get("b")[1]);
+        assertEquals(2, cache.getDiskHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testDiskTier_MissingFile_CountedAsMissAndFailure(@TempDir Path dir) throws IOException {
+        ResultCache cache = new ResultCache(ENTRY, EvictionPolicy.LRU, dir, 4 * ENTRY);
+        cache.put("a", matrix(1));
+        cache.put("b", matrix(2));
+        Files.delete(dir.resolve("a.bin"));
+
+        assertNull(cache.get("a"));
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getDiskFailures());
+        assertEquals(0, cache.getBytesOnDisk());
+        assertEquals(1, cache.size());
+    }
+}
@@ -15,6 +15,9 @@ public class TestCase {
     @JsonProperty("operands")
     private List<Object> operands;
     
+    @JsonProperty("exponent")
+    private Integer exponent;
+
     @JsonProperty("expected")
     private double[][] expected;
     
@@ -40,6 +43,14 @@ public class TestCase {
         this.operands = operands;
     }
 
+    public int getExponent() {
+        return exponent == null ? 0 : exponent;
+    }
+
+    public void setExponent(Integer exponent) {
+        this.exponent = exponent;
+    }
+
     public double[][] getExpected() {
         return expected;
     }
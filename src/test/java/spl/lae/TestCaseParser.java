@@ -45,7 +45,7 @@ public class TestCaseParser {
             }
         }
 
-        return new ComputationNode(nodeType, children);
+        return new ComputationNode(nodeType, children, testCase.getExponent());
     }
 
     /**
@@ -75,7 +75,8 @@ public class TestCaseParser {
                 }
             }
 
-            return new ComputationNode(nodeType, children);
+            Number exponent = (Number) nestedOp.get("exponent");
+            return new ComputationNode(nodeType, children, exponent == null ? 0 : exponent.intValue());
         } else {
             throw new IllegalArgumentException("Unknown operand type: " + operand.getClass());
         }
@@ -121,6 +122,8 @@ public class TestCaseParser {
                 return ComputationNodeType.NEGATE;
             case "T":
                 return ComputationNodeType.TRANSPOSE;
+            case "^":
+                return ComputationNodeType.POWER;
             default:
                 throw new IllegalArgumentException("Unknown operator: " + operator);
         }